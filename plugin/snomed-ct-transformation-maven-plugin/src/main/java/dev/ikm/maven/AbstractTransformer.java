@@ -2,14 +2,133 @@ package dev.ikm.maven;
 
 import dev.ikm.tinkar.composer.Composer;
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.UUID;
 
 public abstract class AbstractTransformer implements Transformer {
     final UUID namespace;
+    CommitPolicy commitPolicy = CommitPolicy.AT_END;
+    SessionCommitter committer = SessionCommitter.SEQUENTIAL;
+    LoadMode loadMode = LoadMode.FULL;
+    CheckpointJournal journal;
+    ChronologyWriter chronologyWriter;
+    Rf2Sorter sorter;
+    TransformationMetrics metrics;
     AbstractTransformer(UUID namespace) {
         this.namespace = namespace;
     }
+
+    /**
+     * @param commitPolicy policy deciding when the transformer commits its sessions while reading a file
+     */
+    public void setCommitPolicy(CommitPolicy commitPolicy) {
+        this.commitPolicy = commitPolicy;
+    }
+
+    /**
+     * @param committer commit workers the transformer commits its sessions with
+     */
+    public void setCommitter(SessionCommitter committer) {
+        this.committer = committer;
+    }
+
+    /**
+     * @param loadMode whether every version or only the latest version of each component is loaded
+     */
+    public void setLoadMode(LoadMode loadMode) {
+        this.loadMode = loadMode;
+    }
+
+    /**
+     * @param journal journal the transformer records its checkpoints in and resumes from
+     */
+    public void setCheckpointJournal(CheckpointJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * @param chronologyWriter bulk writer the transformer writes whole chronologies with, or null to compose them in sessions
+     */
+    public void setChronologyWriter(ChronologyWriter chronologyWriter) {
+        this.chronologyWriter = chronologyWriter;
+    }
+
+    /**
+     * @param sorter sorter that puts the rows of each component next to each other before they are read, or null if
+     * the files are known to be in order
+     */
+    public void setSorter(Rf2Sorter sorter) {
+        this.sorter = sorter;
+    }
+
+    /**
+     * @param metrics metrics of the run the transformer's readers and session pools are counted in, or null
+     */
+    public void setMetrics(TransformationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param file RF2 file
+     * @return reader for the file, sorted first if the run has a sorter, that honors the load mode and skips the rows
+     * committed by an earlier run
+     */
+    Rf2Reader reader(Path file) {
+        Path rows;
+        try {
+            rows = sorter == null ? file : sorter.sorted(file);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        Rf2Reader reader = new Rf2Reader(rows)
+                .latestVersionOnly(loadMode.isLatestVersionOnly())
+                .filter(loadMode.isIncremental() ? new LoadedVersionFilter(namespace, chronologyColumn()) : Rf2Reader.EVERY_ROW)
+                .skipRows(resumedRows(file));
+        if (metrics != null) {
+            metrics.track(file, reader);
+        }
+        return reader;
+    }
+
+    /**
+     * @param composer composer of the run
+     * @param file RF2 file
+     * @return session pool for the file, recording checkpoints if the run keeps a journal
+     */
+    SessionPool sessions(Composer composer, Path file) {
+        SessionPool sessions = new SessionPool(composer, namespace, commitPolicy, committer);
+        if (metrics != null) {
+            metrics.track(file, sessions);
+        }
+        return journal == null ? sessions : sessions.checkpointTo(journal, file, resumedRows(file), isResumed());
+    }
+
+    /**
+     * A delta load already skips whatever an earlier run committed, so it does not skip rows by position
+     */
+    private long resumedRows(Path file) {
+        return isResumed() ? journal.getCommittedRows(file) : 0;
+    }
+
+    private boolean isResumed() {
+        return journal != null && !loadMode.isIncremental() && isResumable();
+    }
+
+    /**
+     * @return column naming the chronology the rows of a file are composed onto, the id column by default
+     */
+    int chronologyColumn() {
+        return 0;
+    }
+
+    /**
+     * @return false if the transformer needs every row of a file, so an interrupted file is read again from the start
+     */
+    boolean isResumable() {
+        return true;
+    }
+
     @Override
     public UUID getNamespace() {
         return namespace;
@@ -1,19 +1,26 @@
 package dev.ikm.maven;
 
 import dev.ikm.tinkar.common.id.PublicIds;
+import dev.ikm.tinkar.common.util.uuid.UuidT5Generator;
 import dev.ikm.tinkar.composer.Composer;
-import dev.ikm.tinkar.composer.Session;
-import dev.ikm.tinkar.composer.template.AxiomSyntax;
+import dev.ikm.tinkar.composer.assembler.SemanticAssembler;
+import dev.ikm.tinkar.entity.graph.adaptor.axiom.LogicalExpression;
+import dev.ikm.tinkar.ext.owl.SctOwlUtilities;
 import dev.ikm.tinkar.terms.EntityProxy;
 import dev.ikm.tinkar.terms.State;
+import dev.ikm.tinkar.terms.TinkarTerm;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Stream;
 
 public class AxiomSyntaxTransformer extends AbstractTransformer {
 
@@ -25,55 +32,209 @@ public class AxiomSyntaxTransformer extends AbstractTransformer {
     private static final int REFSET_ID = 4;
     private static final int REFERENCED_COMPONENT_ID = 5;
     private static final int OWL_EXPRESSION = 6;
-    String previousRowId;
+    private static final Set<String> CLASS_AXIOMS = Set.of("SubClassOf", "EquivalentClasses", "DisjointClasses", "DisjointUnion");
+    private final boolean fuseElAxioms;
+    private final Map<Long, List<AxiomVersion>> latestAxiomsByConcept = new HashMap<>();
 
-    AxiomSyntaxTransformer(UUID namespace) {
+    /**
+     * Latest version of one OWL axiom refset member, kept only while it is active and with its SCTIDs, which take a
+     * fraction of the memory of the public ids they are rewritten to
+     */
+    private record AxiomVersion(long time, long moduleId, String owlExpression, boolean propertyAxiom) {
+    }
+
+    public AxiomSyntaxTransformer(UUID namespace) {
+        this(namespace, false);
+    }
+
+    /**
+     * @param namespace namespace of the run
+     * @param fuseElAxioms also write the EL++ stated axioms of each concept, from the expressions read in this pass
+     */
+    AxiomSyntaxTransformer(UUID namespace, boolean fuseElAxioms) {
         super(namespace);
+        this.fuseElAxioms = fuseElAxioms;
+    }
+
+    /**
+     * The EL++ axioms of a concept are built from all of its OWL axioms, so a fused file is always read in full
+     */
+    @Override
+    boolean isResumable() {
+        return !fuseElAxioms;
     }
 
     /**
      * Parses OWL Expression file and creates Axiom Semantics for each line
      *
      * @param axiomFile input file Path
+     * @throws IllegalStateException if EL++ stated axioms are fused into an incremental load, or the axioms of a
+     * concept cannot be converted to EL++
      */
     @Override
-    public void transform(File axiomFile, Composer composer) {
-        EntityProxy.Concept author = SnomedUtility.getUserConcept(namespace);
-        EntityProxy.Concept path = SnomedUtility.getPathConcept();
-
-        try (Stream<String> lines = Files.lines(axiomFile.toPath())) {
-            lines.skip(1)
-                    .map(row -> row.split("\t"))
-                    .forEach(data -> {
-                        State status = data[ACTIVE].equals("1") ? State.ACTIVE : State.INACTIVE;
-                        long time = SnomedUtility.snomedTimestampToEpochSeconds(data[EFFECTIVE_TIME]);
-                        EntityProxy.Concept module = EntityProxy.Concept.make(PublicIds.of(SnomedUtility.generateUUID(namespace, data[MODULE_ID])));
-
-                        Session session = composer.open(status, time, author, module, path);
-                        configureSemanticsForConcept(session, data);
-                    });
-        } catch(IOException | SecurityException ex) {
-            LOG.info(ex.toString());
+    public void transform(Path axiomFile, Composer composer) {
+        if (fuseElAxioms && loadMode.isIncremental()) {
+            throw new IllegalStateException("Cannot fuse EL++ stated axioms into a " + loadMode + " load of " + axiomFile.getFileName()
+                    + ", a delta holds only some axioms of a concept, run the OWL transform instead");
+        }
+        SessionPool sessions = sessions(composer, axiomFile);
+
+        RowContext context = new RowContext(namespace, sessions, chronologyWriter);
+
+        try {
+            reader(axiomFile).forEachComponent(versions -> {
+                if (sessions.nextComponent(versions)) {
+                    compose(context, versions);
+                }
+            });
+            if (fuseElAxioms) {
+                writeStatedAxioms(sessions);
+            }
+            sessions.complete();
+            LOG.info(axiomFile.getFileName() + ": " + sessions);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
     }
 
     /**
-     * Checks previous row for duplicate id and creates a version instead of a new semantic
+     * Composes the versions of one OWL axiom refset member as versions of its OWL axiom syntax semantic
      *
-     * @param session initialized Session from the Composer API
-     * @param columns line from OWL expression file split on tabs
+     * @param context namespace and sessions of the OWL expression file
+     * @param versions rows of one axiom, sorted by effective time
+     */
+    private void compose(RowContext context, List<Rf2Row> versions) {
+        Rf2Row first = versions.get(0);
+        EntityProxy.Concept concept = EntityProxy.Concept.make(PublicIds.of(SnomedUtility.generateUUID(namespace, first.longValue(REFERENCED_COMPONENT_ID))));
+        EntityProxy.Semantic axiomSemantic = EntityProxy.Semantic.make(PublicIds.of(SnomedUtility.generateUUID(namespace, first.string(ID))));
+        RowContext.SemanticVersions axiomVersions = context.semantic(axiomSemantic, TinkarTerm.OWL_AXIOM_SYNTAX_PATTERN, concept);
+        for (Rf2Row row : versions) {
+            State status = row.booleanValue(ACTIVE) ? State.ACTIVE : State.INACTIVE;
+            long time = TransformationHelper.getEpochTime(row.intValue(EFFECTIVE_TIME));
+            String owlExpressionWithPublicIds = SnomedUtility.owlAxiomIdsToPublicIds(namespace, row.string(OWL_EXPRESSION));
+            axiomVersions.version(status, time, row.longValue(MODULE_ID), owlExpressionWithPublicIds);
+        }
+        axiomVersions.write();
+        Rf2Row latest = versions.get(versions.size() - 1);
+        if (fuseElAxioms && latest.booleanValue(ACTIVE)) {
+            String owlExpression = latest.string(OWL_EXPRESSION);
+            latestAxiomsByConcept.computeIfAbsent(first.longValue(REFERENCED_COMPONENT_ID), id -> new ArrayList<>(1))
+                    .add(new AxiomVersion(TransformationHelper.getEpochTime(latest.intValue(EFFECTIVE_TIME)),
+                            latest.longValue(MODULE_ID), owlExpression, isPropertyAxiom(owlExpression)));
+        }
+    }
+
+    /**
+     * @param owlExpression OWL functional syntax axiom, optionally inside Prefix declarations and an Ontology
+     * @return true if the axiom is a property axiom, such as SubObjectPropertyOf or TransitiveObjectProperty, false if
+     * it is a class axiom or has no axiom type
      */
-    private void configureSemanticsForConcept(Session session, String[] columns) {
-        String owlExpressionWithPublicIds = SnomedUtility.owlAxiomIdsToPublicIds(namespace, columns[OWL_EXPRESSION]);
+    static boolean isPropertyAxiom(String owlExpression) {
+        int length = owlExpression.length();
+        int i = 0;
+        while (true) {
+            i = skipWhitespace(owlExpression, i);
+            int keywordStart = i;
+            while (i < length && Character.isLetter(owlExpression.charAt(i))) {
+                i++;
+            }
+            String axiomType = owlExpression.substring(keywordStart, i);
+            i = skipWhitespace(owlExpression, i);
+            if (axiomType.isEmpty() || i == length || owlExpression.charAt(i) != '(') {
+                return false;
+            }
+            i++;
+            switch (axiomType) {
+                case "Prefix" -> i = skipPastClosingParenthesis(owlExpression, i);
+                case "Ontology" -> {
+                    // the ontology IRI and version IRI come before the axioms
+                    i = skipWhitespace(owlExpression, i);
+                    while (i < length && owlExpression.charAt(i) == '<') {
+                        i = skipWhitespace(owlExpression, owlExpression.indexOf('>', i) + 1);
+                    }
+                    if (i < length && owlExpression.charAt(i) == ')') {
+                        i++;
+                    }
+                }
+                default -> {
+                    return !CLASS_AXIOMS.contains(axiomType);
+                }
+            }
+            if (i <= 0 || i >= length) {
+                return false;
+            }
+        }
+    }
 
-        EntityProxy.Concept concept = EntityProxy.Concept.make(PublicIds.of(SnomedUtility.generateUUID(namespace, columns[REFERENCED_COMPONENT_ID])));
-        EntityProxy.Semantic axiomSemantic = EntityProxy.Semantic.make(PublicIds.of(SnomedUtility.generateUUID(namespace, columns[ID])));
-        previousRowId = columns[ID];
+    private static int skipWhitespace(String owlExpression, int i) {
+        while (i < owlExpression.length() && Character.isWhitespace(owlExpression.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
 
-        session.compose(new AxiomSyntax()
-                        .semantic(axiomSemantic)
-                        .text(owlExpressionWithPublicIds),
-                concept);
+    /**
+     * @return the index after the parenthesis closing the one before {@code i}, skipping IRIs, or the length
+     */
+    private static int skipPastClosingParenthesis(String owlExpression, int i) {
+        int depth = 1;
+        while (i < owlExpression.length() && depth > 0) {
+            char c = owlExpression.charAt(i++);
+            if (c == '<') {
+                int iriEnd = owlExpression.indexOf('>', i);
+                i = iriEnd < 0 ? owlExpression.length() : iriEnd + 1;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Converts the active OWL axioms of every concept to a logical expression and writes it as the concept's
+     * EL++ stated axioms, stamped with the time and module of the concept's latest axiom. Each concept's axioms are
+     * released once written, and the stated axioms are partitioned and committed by concept like any component. The
+     * OWL transform is skipped when the axioms are fused, so an axiom that cannot be converted fails the run rather
+     * than leaving its concept without stated axioms.
+     */
+    private void writeStatedAxioms(SessionPool sessions) {
+        long written = 0;
+        Iterator<Map.Entry<Long, List<AxiomVersion>>> entries = latestAxiomsByConcept.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Long, List<AxiomVersion>> entry = entries.next();
+            entries.remove();
+            StringBuilder classExpressions = new StringBuilder();
+            StringBuilder propertyExpressions = new StringBuilder();
+            AxiomVersion latest = null;
+            for (AxiomVersion axiom : entry.getValue()) {
+                StringBuilder expressions = axiom.propertyAxiom() ? propertyExpressions : classExpressions;
+                expressions.append(SnomedUtility.owlAxiomIdsToPublicIds(namespace, axiom.owlExpression())).append('\n');
+                if (latest == null || axiom.time() > latest.time()) {
+                    latest = axiom;
+                }
+            }
+            LogicalExpression logicalExpression;
+            try {
+                logicalExpression = SctOwlUtilities.sctToLogicalExpression(classExpressions.toString(), propertyExpressions.toString());
+            } catch (IOException | RuntimeException e) {
+                throw new IllegalStateException("Could not convert the OWL axioms of " + entry.getKey() + " to EL++", e);
+            }
+            UUID conceptUuid = SnomedUtility.generateUUID(namespace, entry.getKey());
+            EntityProxy.Concept concept = EntityProxy.Concept.make(PublicIds.of(conceptUuid));
+            EntityProxy.Semantic statedAxioms = EntityProxy.Semantic.make(PublicIds.of(
+                    UuidT5Generator.get(TinkarTerm.EL_PLUS_PLUS_STATED_AXIOMS_PATTERN.asUuidArray()[0], conceptUuid.toString())));
+            sessions.nextChronology(entry.getKey(), classExpressions.length() + propertyExpressions.length());
+            sessions.open(State.ACTIVE, latest.time(), latest.moduleId())
+                    .compose((SemanticAssembler semanticAssembler) -> semanticAssembler
+                            .semantic(statedAxioms)
+                            .pattern(TinkarTerm.EL_PLUS_PLUS_STATED_AXIOMS_PATTERN)
+                            .reference(concept)
+                            .fieldValues(fieldValues -> fieldValues.with(logicalExpression.sourceGraph())));
+            written++;
+        }
+        LOG.info("Fused EL++ stated axioms for " + written + " concepts");
     }
 
 }
@@ -0,0 +1,147 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.common.service.PrimitiveData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * Records, per RF2 file, how many rows have been committed and made durable, so an interrupted run can resume from
+ * the last checkpoint. The datastore is saved before a checkpoint is recorded, and the journal is replaced atomically,
+ * so a recorded checkpoint never runs ahead of the datastore. When only some commit partitions of a batch committed,
+ * the rows each partition holds are recorded as well, since the file's checkpoint cannot move past the failed batch.
+ */
+public class CheckpointJournal {
+    private static final Logger LOG = LoggerFactory.getLogger(CheckpointJournal.class.getSimpleName());
+    public static final String JOURNAL_FILE = "snomed-transformation-checkpoints.properties";
+    private static final String ROWS = ".rows";
+    private static final String COMMIT = ".commit";
+    private static final String COMPLETE = ".complete";
+    private static final String PARTITIONS = ".partitions";
+
+    private final Path journalFile;
+    private final Properties checkpoints = new Properties();
+
+    private CheckpointJournal(Path journalFile) {
+        this.journalFile = journalFile;
+    }
+
+    /**
+     * @param datastore datastore the journal belongs to
+     * @param resume keep the checkpoints of an earlier run instead of starting a new journal
+     * @return journal stored next to the datastore
+     */
+    public static CheckpointJournal open(Path datastore, boolean resume) {
+        CheckpointJournal journal = new CheckpointJournal(datastore.resolve(JOURNAL_FILE));
+        try {
+            if (resume && Files.isRegularFile(journal.journalFile)) {
+                try (Reader reader = Files.newBufferedReader(journal.journalFile)) {
+                    journal.checkpoints.load(reader);
+                }
+                LOG.info("Resuming from " + journal.journalFile);
+            } else {
+                Files.deleteIfExists(journal.journalFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return journal;
+    }
+
+    /**
+     * @param file RF2 file
+     * @return number of rows of the file committed by earlier runs
+     */
+    public synchronized long getCommittedRows(Path file) {
+        return Long.parseLong(checkpoints.getProperty(key(file) + ROWS, "0"));
+    }
+
+    /**
+     * @param file RF2 file
+     * @return number of commits made for the file by earlier runs
+     */
+    public synchronized long getCommitId(Path file) {
+        return Long.parseLong(checkpoints.getProperty(key(file) + COMMIT, "0"));
+    }
+
+    /**
+     * @param file RF2 file
+     * @return true if every row of the file has been committed
+     */
+    public synchronized boolean isComplete(Path file) {
+        return Boolean.parseBoolean(checkpoints.getProperty(key(file) + COMPLETE, "false"));
+    }
+
+    /**
+     * @param file RF2 file
+     * @return number of rows of the file committed by each commit partition, if an earlier run committed only some
+     * partitions of its last batch, or an empty array
+     */
+    public synchronized long[] getCommittedPartitionRows(Path file) {
+        String rows = checkpoints.getProperty(key(file) + PARTITIONS);
+        if (rows == null) {
+            return new long[0];
+        }
+        return Arrays.stream(rows.split(",")).mapToLong(Long::parseLong).toArray();
+    }
+
+    /**
+     * Saves the datastore and records the rows of a file committed by each commit partition, after a batch that only
+     * some partitions committed. The file's own checkpoint stays where the last complete batch left it.
+     * @param file RF2 file
+     * @param partitionRows number of rows of the file committed by each partition
+     */
+    public synchronized void checkpointPartitions(Path file, long[] partitionRows) {
+        PrimitiveData.save();
+        checkpoints.setProperty(key(file) + PARTITIONS, Arrays.stream(partitionRows)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(",")));
+        store();
+    }
+
+    /**
+     * Saves the datastore and records that the first rows of a file are committed
+     * @param file RF2 file
+     * @param committedRows number of rows of the file committed so far
+     * @param commitId number of the commit that completed those rows
+     * @param complete true if the file has been read to the end
+     */
+    public synchronized void checkpoint(Path file, long committedRows, long commitId, boolean complete) {
+        PrimitiveData.save();
+        String key = key(file);
+        checkpoints.setProperty(key + ROWS, Long.toString(committedRows));
+        checkpoints.setProperty(key + COMMIT, Long.toString(commitId));
+        checkpoints.setProperty(key + COMPLETE, Boolean.toString(complete));
+        // the rows of partitions that committed beyond this checkpoint are kept until the checkpoint catches up
+        if (Arrays.stream(getCommittedPartitionRows(file)).allMatch(rows -> rows <= committedRows)) {
+            checkpoints.remove(key + PARTITIONS);
+        }
+        store();
+    }
+
+    private void store() {
+        Path temporaryFile = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporaryFile)) {
+                checkpoints.store(writer, "SNOMED CT transformation checkpoints");
+            }
+            Files.move(temporaryFile, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String key(Path file) {
+        return file.getFileName().toString();
+    }
+}
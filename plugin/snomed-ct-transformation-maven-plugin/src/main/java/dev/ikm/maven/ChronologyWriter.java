@@ -0,0 +1,128 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.common.id.PublicIds;
+import dev.ikm.tinkar.common.service.PrimitiveData;
+import dev.ikm.tinkar.common.util.uuid.UuidT5Generator;
+import dev.ikm.tinkar.entity.ConceptRecord;
+import dev.ikm.tinkar.entity.ConceptVersionRecord;
+import dev.ikm.tinkar.entity.EntityService;
+import dev.ikm.tinkar.entity.RecordListBuilder;
+import dev.ikm.tinkar.entity.SemanticRecord;
+import dev.ikm.tinkar.entity.SemanticVersionRecord;
+import dev.ikm.tinkar.entity.StampRecord;
+import dev.ikm.tinkar.entity.StampVersionRecord;
+import dev.ikm.tinkar.terms.EntityProxy;
+import dev.ikm.tinkar.terms.State;
+import org.eclipse.collections.api.factory.Lists;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes the whole chronology of a component to the entity store in one step. A Composer session assembles one
+ * version at a time and merges it into the stored chronology, so a concept with ten rows in a Full file is
+ * assembled and merged ten times; the bulk writer is handed every version of the component at once, builds the
+ * chronology record with all of them and puts it once. STAMPs are written once per distinct status, time and module
+ * and shared by every file of the run. A writer is thread safe.
+ */
+public class ChronologyWriter {
+    private final UUID namespace;
+    private final int authorNid;
+    private final int pathNid;
+    private final Map<StampKey, Integer> stampNids = new ConcurrentHashMap<>();
+    private final LongAdder chronologyCount = new LongAdder();
+    private final LongAdder versionCount = new LongAdder();
+
+    private record StampKey(State status, long time, long moduleId) {
+    }
+
+    /**
+     * @param namespace namespace of the run, for the author, modules and STAMP UUIDs
+     */
+    public ChronologyWriter(UUID namespace) {
+        this.namespace = namespace;
+        this.authorNid = SnomedUtility.getUserConcept(namespace).nid();
+        this.pathNid = SnomedUtility.getPathConcept().nid();
+    }
+
+    /**
+     * @param status status of the version
+     * @param time epoch time of the version
+     * @param moduleId SCTID of the version's module
+     * @return nid of the STAMP, written on first use
+     */
+    public int stampNid(State status, long time, long moduleId) {
+        StampKey key = new StampKey(status, time, moduleId);
+        Integer nid = stampNids.get(key);
+        if (nid != null) {
+            return nid;
+        }
+        // written outside the map so the datastore is never called under a bin lock; threads racing on a new
+        // STAMP put the same record, and the nid is published only once the STAMP is stored
+        nid = writeStamp(key);
+        Integer published = stampNids.putIfAbsent(key, nid);
+        return published != null ? published : nid;
+    }
+
+    private int writeStamp(StampKey key) {
+        UUID stampUuid = UuidT5Generator.get(namespace, "STAMP " + key.status() + " " + key.time() + " " + key.moduleId());
+        int nid = PrimitiveData.nid(PublicIds.of(stampUuid));
+        int moduleNid = TransformationHelper.getMetadataConcept(namespace, key.moduleId()).nid();
+        RecordListBuilder<StampVersionRecord> versions = RecordListBuilder.make();
+        StampRecord stamp = new StampRecord(stampUuid.getMostSignificantBits(), stampUuid.getLeastSignificantBits(), null, nid, versions);
+        versions.add(new StampVersionRecord(stamp, key.status().nid(), key.time(), authorNid, moduleNid, pathNid));
+        versions.build();
+        EntityService.get().putEntity(stamp);
+        return nid;
+    }
+
+    /**
+     * @param concept concept to write
+     * @param stampNids STAMP of each version
+     */
+    public void writeConcept(EntityProxy.Concept concept, int[] stampNids) {
+        UUID uuid = concept.asUuidArray()[0];
+        RecordListBuilder<ConceptVersionRecord> versions = RecordListBuilder.make();
+        ConceptRecord conceptRecord = new ConceptRecord(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), null, concept.nid(), versions);
+        for (int stampNid : stampNids) {
+            versions.add(new ConceptVersionRecord(conceptRecord, stampNid));
+        }
+        versions.build();
+        EntityService.get().putEntity(conceptRecord);
+        count(stampNids.length);
+    }
+
+    /**
+     * @param semantic semantic to write
+     * @param pattern pattern of the semantic
+     * @param reference component the semantic refers to
+     * @param stampNids STAMP of each version
+     * @param fieldValues field values of each version, in the order of the pattern's fields
+     */
+    public void writeSemantic(EntityProxy.Semantic semantic, EntityProxy.Pattern pattern, EntityProxy reference,
+                              int[] stampNids, List<Object[]> fieldValues) {
+        UUID uuid = semantic.asUuidArray()[0];
+        RecordListBuilder<SemanticVersionRecord> versions = RecordListBuilder.make();
+        SemanticRecord semanticRecord = new SemanticRecord(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), null,
+                semantic.nid(), pattern.nid(), reference.nid(), versions);
+        for (int i = 0; i < stampNids.length; i++) {
+            versions.add(new SemanticVersionRecord(semanticRecord, stampNids[i], Lists.immutable.of(fieldValues.get(i))));
+        }
+        versions.build();
+        EntityService.get().putEntity(semanticRecord);
+        count(stampNids.length);
+    }
+
+    private void count(int versions) {
+        chronologyCount.increment();
+        versionCount.add(versions);
+    }
+
+    @Override
+    public String toString() {
+        return "Bulk writer: " + chronologyCount.sum() + " chronologies, " + versionCount.sum() + " versions, " + stampNids.size() + " STAMPs";
+    }
+}
@@ -0,0 +1,106 @@
+package dev.ikm.maven;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+
+/**
+ * Decides when the sessions of a transformer have collected enough pending data to be committed.
+ * A commit is due once the pending rows or the pending RF2 bytes reach their limit, or once the old generation
+ * still holds more than the heap budget after a collection. Only the heap left after a collection counts, so garbage
+ * waiting for the collector does not make commits due, and a measurement a commit was already made for does not
+ * make another one due. A limit of zero or less is ignored.
+ */
+public class CommitPolicy {
+    /**
+     * keeps every session open until the end of the run
+     */
+    public static final CommitPolicy AT_END = new CommitPolicy(0, 0, 0);
+
+    private static final int HEAP_CHECK_INTERVAL = 4096;
+    private static final MemoryPoolMXBean OLD_GENERATION = oldGeneration();
+
+    private final long maxRows;
+    private final long maxBytes;
+    private final long heapBudgetBytes;
+
+    /**
+     * @param maxRows rows composed before a commit is due
+     * @param maxBytes RF2 bytes composed before a commit is due
+     * @param heapBudgetBytes old generation in use after a collection above which a commit is due
+     */
+    public CommitPolicy(long maxRows, long maxBytes, long heapBudgetBytes) {
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+        this.heapBudgetBytes = heapBudgetBytes;
+    }
+
+    /**
+     * @param maxRows rows composed before a commit is due, 0 for no limit
+     * @param maxMegabytes megabytes of RF2 rows composed before a commit is due, 0 for no limit
+     * @param heapBudgetMegabytes heap budget in megabytes, 0 for 75% of the maximum heap, negative for no budget
+     * @return commit policy for the given limits
+     */
+    public static CommitPolicy of(long maxRows, long maxMegabytes, long heapBudgetMegabytes) {
+        long heapBudgetBytes = heapBudgetMegabytes == 0
+                ? Runtime.getRuntime().maxMemory() / 4 * 3
+                : heapBudgetMegabytes * 1024 * 1024;
+        return new CommitPolicy(maxRows, maxMegabytes * 1024 * 1024, heapBudgetBytes);
+    }
+
+    /**
+     * @param pendingRows rows composed since the last commit
+     * @param pendingBytes RF2 bytes composed since the last commit
+     * @param committedHeap {@link #heapAfterCollection()} when the sessions were last committed
+     * @return true if the pending sessions should be committed
+     */
+    public boolean isCommitDue(long pendingRows, long pendingBytes, long committedHeap) {
+        if (maxRows > 0 && pendingRows >= maxRows) {
+            return true;
+        }
+        if (maxBytes > 0 && pendingBytes >= maxBytes) {
+            return true;
+        }
+        if (heapBudgetBytes <= 0 || pendingRows % HEAP_CHECK_INTERVAL != 0) {
+            return false;
+        }
+        long heap = heapAfterCollection();
+        return heap > heapBudgetBytes && heap != committedHeap;
+    }
+
+    /**
+     * @return true if no limit is set, so commits are never due and sessions stay open until the end of the run
+     */
+    public boolean isAtEnd() {
+        return maxRows <= 0 && maxBytes <= 0 && heapBudgetBytes <= 0;
+    }
+
+    /**
+     * @return bytes of the old generation in use after its latest collection, or -1 before the first collection or
+     * if the collector reports no old generation
+     */
+    public static long heapAfterCollection() {
+        MemoryUsage usage = OLD_GENERATION == null ? null : OLD_GENERATION.getCollectionUsage();
+        return usage == null ? -1 : usage.getUsed();
+    }
+
+    /**
+     * @return the heap pool of long-lived objects, the one pool that supports both usage thresholds, such as G1 Old
+     * Gen or Tenured Gen, or null if there is none
+     */
+    private static MemoryPoolMXBean oldGeneration() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .filter(pool -> pool.isUsageThresholdSupported() && pool.isCollectionUsageThresholdSupported())
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public String toString() {
+        return "CommitPolicy: " + (maxRows > 0 ? maxRows + " rows" : "no row limit")
+                + ", " + (maxBytes > 0 ? maxBytes / (1024 * 1024) + " MB" : "no size limit")
+                + ", " + (heapBudgetBytes > 0 ? heapBudgetBytes / (1024 * 1024) + " MB heap budget" : "no heap budget");
+    }
+}
@@ -1,76 +1,41 @@
 package dev.ikm.maven;
 
 import dev.ikm.tinkar.common.id.PublicIds;
-import dev.ikm.tinkar.composer.Composer;
-import dev.ikm.tinkar.composer.Session;
-import dev.ikm.tinkar.composer.assembler.ConceptAssembler;
-import dev.ikm.tinkar.composer.template.Identifier;
 import dev.ikm.tinkar.terms.EntityProxy;
 import dev.ikm.tinkar.terms.State;
 import dev.ikm.tinkar.terms.TinkarTerm;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.util.UUID;
-import java.util.stream.Stream;
+import java.util.List;
 
-public class ConceptTransformer extends AbstractTransformer {
-    private static final Logger LOG = LoggerFactory.getLogger(ConceptTransformer.class.getSimpleName());
+public class ConceptTransformer implements RowTransformer {
     private static final int ID = 0;
     private static final int EFFECTIVE_TIME = 1;
     private static final int ACTIVE = 2;
     private static final int MODULE_ID = 3;
     private static final int DEFINITION_STATUS_ID = 4;
-    private String previousRowId;
 
-    ConceptTransformer(UUID namespace) {
-        super(namespace);
+    @Override
+    public boolean accepts(Rf2FileName fileName) {
+        return fileName.component().equals("Concept");
     }
 
     /**
-     * transforms concept file into entity
-     * @param inputFile concept input txt file
+     * transforms the versions of a concept into entity, attaching its identifiers to the first version
+     * @param context namespace and sessions of the concept file
+     * @param versions rows of one concept
      */
     @Override
-    public void transform(File inputFile, Composer composer){
-        if(inputFile == null || !inputFile.exists() || !inputFile.isFile()){
-            throw new RuntimeException("Concept input file is either null or invalid.");
-        }
-        EntityProxy.Concept author = SnomedUtility.getUserConcept(namespace);
-        EntityProxy.Concept path = SnomedUtility.getPathConcept();
-
-        try (Stream<String> lines = Files.lines(inputFile.toPath())) {
-            lines.skip(1) //skip first line, i.e. header line
-                    .map(row -> row.split("\t"))
-                    .forEach(data -> {
-                        State status = Integer.parseInt(data[ACTIVE]) == 1 ? State.ACTIVE : State.INACTIVE;
-                        long time = SnomedUtility.snomedTimestampToEpochSeconds(data[EFFECTIVE_TIME]);
-                        EntityProxy.Concept moduleIdConcept = EntityProxy.Concept.make(PublicIds.of(SnomedUtility.generateUUID(namespace, data[MODULE_ID])));
-                        EntityProxy.Concept concept = EntityProxy.Concept.make(PublicIds.of(SnomedUtility.generateUUID(namespace,data[ID])));
-
-                        Session session = composer.open(status, time, author, moduleIdConcept, path);
-                        if(!data[ID].equals(previousRowId)) {
-                            session.compose((ConceptAssembler conceptAssembler) -> conceptAssembler
-                                    .concept(concept)
-                                    .attach((Identifier identifier) -> identifier
-                                            .source(TinkarTerm.UNIVERSALLY_UNIQUE_IDENTIFIER)
-                                            .identifier(concept.asUuidArray()[0].toString())
-                                    )
-                                    .attach((Identifier identifier) -> identifier
-                                            .source(TinkarTerm.SCTID)
-                                            .identifier(data[ID])
-                                    )
-                            );
-                        } else {
-                            session.compose((ConceptAssembler conceptAssembler) -> conceptAssembler.concept(concept));
-                        }
-                        previousRowId = data[ID];
-                    });
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    public void compose(RowContext context, List<Rf2Row> versions) {
+        long id = versions.get(0).longValue(ID);
+        EntityProxy.Concept concept = EntityProxy.Concept.make(PublicIds.of(SnomedUtility.generateUUID(context.getNamespace(), id)));
+        RowContext.ConceptVersions conceptVersions = context.concept(concept)
+                .identifier(TinkarTerm.UNIVERSALLY_UNIQUE_IDENTIFIER, concept.asUuidArray()[0].toString())
+                .identifier(TinkarTerm.SCTID, Long.toString(id));
+        for (Rf2Row row : versions) {
+            State status = row.booleanValue(ACTIVE) ? State.ACTIVE : State.INACTIVE;
+            long time = TransformationHelper.getEpochTime(row.intValue(EFFECTIVE_TIME));
+            conceptVersions.version(status, time, row.longValue(MODULE_ID));
         }
+        conceptVersions.write();
     }
 }
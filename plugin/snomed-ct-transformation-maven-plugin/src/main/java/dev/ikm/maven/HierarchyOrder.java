@@ -0,0 +1,158 @@
+package dev.ikm.maven;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Breadth-first is-a order of the concepts of a release, starting from the concepts without parents. Parents are
+ * taken from the active is-a rows of the inferred relationship file, or, for releases without one, from the named
+ * classes of the active OWL SubClassOf and EquivalentClasses axioms. Siblings are ordered by SCTID; concepts outside
+ * the hierarchy, such as inactive concepts, follow the hierarchy in concept file order.
+ */
+public final class HierarchyOrder {
+    private static final Logger LOG = LoggerFactory.getLogger(HierarchyOrder.class.getSimpleName());
+    private static final long IS_A = 116680003L;
+    private static final int ID = 0;
+    private static final int ACTIVE = 2;
+    private static final int SOURCE_ID = 4;
+    private static final int DESTINATION_ID = 5;
+    private static final int TYPE_ID = 7;
+    private static final int REFERENCED_COMPONENT_ID = 5;
+    private static final int OWL_EXPRESSION = 6;
+
+    private HierarchyOrder() {
+    }
+
+    /**
+     * @param files RF2 files of the release
+     * @return position of every concept of the concept file in breadth-first is-a order
+     * @throws IOException if a file cannot be read
+     */
+    public static Map<Long, Integer> conceptRanks(List<Path> files) throws IOException {
+        List<Long> concepts = new ArrayList<>();
+        Path relationshipFile = null;
+        Path axiomFile = null;
+        for (Path file : files) {
+            Rf2FileName fileName = Rf2FileName.parse(file.getFileName().toString());
+            switch (fileName == null ? "" : fileName.component()) {
+                case "Concept" -> new Rf2Reader(file).latestVersionOnly(true).forEachRow(row -> concepts.add(row.longValue(ID)));
+                case "Relationship" -> relationshipFile = file;
+                case "OWLExpression" -> axiomFile = file;
+                default -> {
+                }
+            }
+        }
+
+        Map<Long, List<Long>> children = new HashMap<>();
+        Set<Long> hasParent = new HashSet<>();
+        if (relationshipFile != null) {
+            new Rf2Reader(relationshipFile).latestVersionOnly(true).forEachRow(row -> {
+                if (row.booleanValue(ACTIVE) && row.longValue(TYPE_ID) == IS_A) {
+                    addParent(children, hasParent, row.longValue(SOURCE_ID), row.longValue(DESTINATION_ID));
+                }
+            });
+        } else if (axiomFile != null) {
+            new Rf2Reader(axiomFile).latestVersionOnly(true).forEachRow(row -> {
+                if (row.booleanValue(ACTIVE)) {
+                    long conceptId = row.longValue(REFERENCED_COMPONENT_ID);
+                    for (long parentId : namedParents(row.string(OWL_EXPRESSION), conceptId)) {
+                        addParent(children, hasParent, conceptId, parentId);
+                    }
+                }
+            });
+        }
+        children.values().forEach(list -> list.sort(null));
+
+        Map<Long, Integer> ranks = new HashMap<>(concepts.size() * 2);
+        Deque<Long> queue = new ArrayDeque<>();
+        for (Long concept : concepts) {
+            if (!hasParent.contains(concept) && children.containsKey(concept)) {
+                ranks.put(concept, ranks.size());
+                queue.add(concept);
+            }
+        }
+        while (!queue.isEmpty()) {
+            for (Long child : children.getOrDefault(queue.poll(), List.of())) {
+                if (ranks.putIfAbsent(child, ranks.size()) == null) {
+                    queue.add(child);
+                }
+            }
+        }
+        int inHierarchy = ranks.size();
+        for (Long concept : concepts) {
+            ranks.putIfAbsent(concept, ranks.size());
+        }
+        LOG.info("Ordered " + inHierarchy + " of " + ranks.size() + " concepts by the is-a hierarchy of "
+                + (relationshipFile != null ? relationshipFile.getFileName() : axiomFile != null ? axiomFile.getFileName() : "no file"));
+        return ranks;
+    }
+
+    private static void addParent(Map<Long, List<Long>> children, Set<Long> hasParent, long conceptId, long parentId) {
+        children.computeIfAbsent(parentId, id -> new ArrayList<>()).add(conceptId);
+        hasParent.add(conceptId);
+    }
+
+    /**
+     * Named classes that the class axiom of a concept intersects, such as :B and :C in
+     * SubClassOf(:A ObjectIntersectionOf(:B :C ObjectSomeValuesFrom(...))); role fillers and general concept
+     * inclusions are not parents
+     * @param owlExpression OWL expression in functional syntax, with SCTIDs
+     * @param conceptId concept the axiom belongs to
+     * @return SCTIDs of the named parents
+     */
+    static List<Long> namedParents(String owlExpression, long conceptId) {
+        List<Long> parents = new ArrayList<>();
+        String subject = ":" + conceptId + " ";
+        int start;
+        if (owlExpression.startsWith("SubClassOf(" + subject)) {
+            start = "SubClassOf(".length() + subject.length();
+        } else if (owlExpression.startsWith("EquivalentClasses(" + subject)) {
+            start = "EquivalentClasses(".length() + subject.length();
+        } else {
+            return parents;
+        }
+        String intersection = "ObjectIntersectionOf(";
+        if (owlExpression.startsWith(intersection, start)) {
+            int depth = 1;
+            for (int i = start + intersection.length(); i < owlExpression.length() && depth > 0; i++) {
+                char c = owlExpression.charAt(i);
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                } else if (c == ':' && depth == 1) {
+                    int end = digitsEnd(owlExpression, i + 1);
+                    if (end > i + 1) {
+                        parents.add(Long.parseLong(owlExpression, i + 1, end, 10));
+                    }
+                    i = end - 1;
+                }
+            }
+        } else if (owlExpression.startsWith(":", start)) {
+            int end = digitsEnd(owlExpression, start + 1);
+            if (end > start + 1) {
+                parents.add(Long.parseLong(owlExpression, start + 1, end, 10));
+            }
+        }
+        return parents;
+    }
+
+    private static int digitsEnd(String text, int start) {
+        int end = start;
+        while (end < text.length() && Character.isDigit(text.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+}
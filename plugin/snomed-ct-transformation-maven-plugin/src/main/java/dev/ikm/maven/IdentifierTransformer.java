@@ -16,78 +16,63 @@
 package dev.ikm.maven;
 
 
-import dev.ikm.tinkar.common.id.PublicId;
-import dev.ikm.tinkar.common.id.PublicIds;
-import dev.ikm.tinkar.composer.Composer;
-import dev.ikm.tinkar.composer.Session;
-import dev.ikm.tinkar.composer.assembler.ConceptAssembler;
-import dev.ikm.tinkar.composer.template.Identifier;
 import dev.ikm.tinkar.terms.EntityProxy;
 import dev.ikm.tinkar.terms.State;
 import dev.ikm.tinkar.terms.TinkarTerm;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.util.UUID;
-import java.util.stream.Stream;
+import java.util.List;
+import java.util.Set;
 
-public class IdentifierTransformer extends AbstractTransformer {
+public class IdentifierTransformer implements RowTransformer {
 
-    private static final Logger LOG = LoggerFactory.getLogger(ConceptTransformer.class.getSimpleName());
     private static final int REFCOMPID = 5;
     private static final int ID = 0;
     private static final int EFFECTIVE_TIME = 1;
     private static final int ACTIVE = 2;
     private static final int MODULE_ID = 3;
     private static final int IDENTIFIER_SCHEME_ID = 4;
-    private String previousRowId;
 
-    IdentifierTransformer(UUID namespace) {super(namespace);}
+    @Override
+    public boolean accepts(Rf2FileName fileName) {
+        return fileName.component().equals("Identifier");
+    }
+
+    /**
+     * Identifier rows are composed onto the concept of their identifier scheme
+     */
+    @Override
+    public int chronologyColumn() {
+        return IDENTIFIER_SCHEME_ID;
+    }
 
     /**
-     * transforms identifier file into entity
-     * @param inputFile identifier input txt file
+     * Identifier rows are composed onto concept chronologies, so the concept file has to be done first
      */
     @Override
-    public void transform(File inputFile, Composer composer){
-        EntityProxy.Concept author = SnomedUtility.getUserConcept(namespace);
-        EntityProxy.Concept path = SnomedUtility.getPathConcept();
+    public Set<Class<? extends RowTransformer>> dependencies() {
+        return Set.of(ConceptTransformer.class);
+    }
+
+    /**
+     * transforms the first version of an identifier into entity
+     * @param context namespace and sessions of the identifier file
+     * @param versions rows of one identifier
+     */
+    @Override
+    public void compose(RowContext context, List<Rf2Row> versions) {
+        Rf2Row row = versions.get(0);
+        State status = row.booleanValue(ACTIVE) ? State.ACTIVE : State.INACTIVE;
+        long time = TransformationHelper.getEpochTime(row.intValue(EFFECTIVE_TIME));
+
+        //PublicId publicId = PublicIds.of(UuidUtil.fromSNOMED(data[REFCOMPID]));
+        // EntityProxy.Concept concept = EntityProxy.Concept.make(publicId);
 
-        try (Stream<String> lines = Files.lines(inputFile.toPath())) {
-            lines.skip(1) //skip first line, i.e. header line
-                    .map(row -> row.split("\t"))
-                    .forEach(data -> {
-                        State status = Integer.parseInt(data[ACTIVE]) == 1 ? State.ACTIVE : State.INACTIVE;
-                        long time = SnomedUtility.snomedTimestampToEpochSeconds(data[EFFECTIVE_TIME]);
-                        EntityProxy.Concept moduleIdConcept = EntityProxy.Concept.make(PublicIds.of(SnomedUtility.generateUUID(namespace, data[MODULE_ID])));
-                        Session session = composer.open(status, time, author, moduleIdConcept, path);
+        EntityProxy.Concept concept = TransformationHelper.getMetadataConcept(context.getNamespace(), row.longValue(IDENTIFIER_SCHEME_ID));
 
-                        //PublicId publicId = PublicIds.of(UuidUtil.fromSNOMED(data[REFCOMPID]));
-                        // EntityProxy.Concept concept = EntityProxy.Concept.make(publicId);
-                        
-                        PublicId identifierSchemeId = PublicIds.of(SnomedUtility.generateUUID(namespace, data[IDENTIFIER_SCHEME_ID]));
-                        EntityProxy.Concept concept = EntityProxy.Concept.make(identifierSchemeId);
-                        
-                        if (!data[ID].equals(previousRowId)) {
-                            session.compose((ConceptAssembler conceptAssembler) -> conceptAssembler
-                                    .concept(concept)
-                                    .attach((Identifier identifier) -> identifier
-                                            .source(TinkarTerm.UNIVERSALLY_UNIQUE_IDENTIFIER)
-                                            .identifier(concept.asUuidArray()[0].toString())
-                                    )
-                                    .attach((Identifier identifier) -> identifier
-                                            .source(SnomedUtility.getSnomedIdentifierSchemeConcept())
-                                            .identifier(data[ID])
-                                    )
-                            );
-                        }
-                        previousRowId = data[ID];
-                    });
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        context.concept(concept)
+                .version(status, time, row.longValue(MODULE_ID))
+                .identifier(TinkarTerm.UNIVERSALLY_UNIQUE_IDENTIFIER, concept.asUuidArray()[0].toString())
+                .identifier(SnomedUtility.getSnomedIdentifierSchemeConcept(), row.string(ID))
+                .write();
     }
 }
@@ -1,26 +1,13 @@
 package dev.ikm.maven;
 
 import dev.ikm.tinkar.common.id.PublicIds;
-import dev.ikm.tinkar.composer.Composer;
-import dev.ikm.tinkar.composer.Session;
-import dev.ikm.tinkar.composer.assembler.SemanticAssembler;
-import dev.ikm.tinkar.entity.Entity;
-import dev.ikm.tinkar.entity.EntityVersion;
 import dev.ikm.tinkar.terms.EntityProxy;
 import dev.ikm.tinkar.terms.State;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Stream;
 
-public class LanguageTransformer extends AbstractTransformer {
-    private static final Logger LOG = LoggerFactory.getLogger(LanguageTransformer.class.getSimpleName());
+public class LanguageTransformer implements RowTransformer {
     private static final int ID = 0;
     private static final int EFFECTIVE_TIME = 1;
     private static final int ACTIVE = 2;
@@ -29,41 +16,32 @@ public class LanguageTransformer extends AbstractTransformer {
     private static final int REFERENCED_COMPONENT_ID = 5;
     private static final int ACCEPTABILITY_ID = 6;
 
-    LanguageTransformer(UUID namespace) {
-        super(namespace);
+    @Override
+    public boolean accepts(Rf2FileName fileName) {
+        return fileName.isRefset() && fileName.component().equals("Language");
     }
 
     /**
-     * This method uses a language file and transforms it into a list of entities
-     * @param languageFile
-     * @Returns EntityList
+     * Transforms the versions of a language refset member into versions of one dialect semantic
+     * @param context namespace and sessions of the language file
+     * @param versions rows of one refset member
      */
     @Override
-    public void transform(File languageFile, Composer composer) {
-        List<Entity<? extends EntityVersion>> semantics = new ArrayList<>();
-        EntityProxy.Concept author = SnomedUtility.getUserConcept(namespace);
-        EntityProxy.Concept path = SnomedUtility.getPathConcept();
-
-        try (Stream<String> lines = Files.lines(languageFile.toPath())) {
-            lines.skip(1) //skip first line, i.e. header line
-                    .map(row -> row.split("\t"))
-                    .forEach((data) -> {
-                        State status = Integer.parseInt(data[ACTIVE]) == 1 ? State.ACTIVE : State.INACTIVE;
-                        long epochTime = SnomedUtility.snomedTimestampToEpochSeconds(data[EFFECTIVE_TIME]);
-
-                        EntityProxy.Concept moduleId = EntityProxy.Concept.make(PublicIds.of(SnomedUtility.generateUUID(namespace, data[MODULE_ID])));
-                        EntityProxy.Concept referencedComponent = EntityProxy.Concept.make(PublicIds.of(SnomedUtility.generateUUID(namespace, data[REFERENCED_COMPONENT_ID])));
-
-                        Session session = composer.open(status, epochTime, author, moduleId, path);
-                        session.compose((SemanticAssembler semanticAssembler) -> semanticAssembler
-                                .pattern(TransformationHelper.getDialectPattern(data[REFSET_ID]))
-                                .reference(referencedComponent)
-                                .fieldValues(fieldValues -> fieldValues
-                                        .with(EntityProxy.Concept.make(PublicIds.of(SnomedUtility.generateUUID(namespace, data[ACCEPTABILITY_ID])))
-                                )));
-                    });
-        } catch(IOException e) {
-            LOG.warn("Error parsing language file");
+    public void compose(RowContext context, List<Rf2Row> versions) {
+        UUID namespace = context.getNamespace();
+        // every version of a member shares its id, so the Full history becomes versions of one semantic
+        EntityProxy.Semantic member = EntityProxy.Semantic.make(PublicIds.of(SnomedUtility.generateUUID(namespace, versions.get(0).string(ID))));
+        Rf2Row first = versions.get(0);
+        EntityProxy.Concept referencedComponent = EntityProxy.Concept.make(PublicIds.of(SnomedUtility.generateUUID(namespace, first.longValue(REFERENCED_COMPONENT_ID))));
+        EntityProxy.Pattern dialectPattern = TransformationHelper.getDialectPattern(first.longValue(REFSET_ID));
+        RowContext.SemanticVersions memberVersions = context.semantic(member, dialectPattern, referencedComponent);
+        for (Rf2Row row : versions) {
+            State status = row.booleanValue(ACTIVE) ? State.ACTIVE : State.INACTIVE;
+            long epochTime = TransformationHelper.getEpochTime(row.intValue(EFFECTIVE_TIME));
+
+            EntityProxy.Concept acceptability = TransformationHelper.getMetadataConcept(namespace, row.longValue(ACCEPTABILITY_ID));
+            memberVersions.version(status, epochTime, row.longValue(MODULE_ID), acceptability);
         }
+        memberVersions.write();
     }
 }
@@ -0,0 +1,62 @@
+package dev.ikm.maven;
+
+import java.util.List;
+
+/**
+ * Which part of a release is loaded into the datastore
+ */
+public enum LoadMode {
+    /**
+     * every historical version of every component, from the Full release files
+     */
+    FULL("Full"),
+    /**
+     * only the latest version of every component, from the Snapshot release files or collapsed from Full files
+     */
+    SNAPSHOT("Snapshot"),
+    /**
+     * the changes since the previous release, from the Delta release files, applied to an existing datastore
+     */
+    DELTA("Delta");
+
+    private final String releaseFolder;
+
+    LoadMode(String releaseFolder) {
+        this.releaseFolder = releaseFolder;
+    }
+
+    /**
+     * @return name of the release folder holding the RF2 files of this mode
+     */
+    public String getReleaseFolder() {
+        return releaseFolder;
+    }
+
+    /**
+     * @return patterns of the release zip entries this mode reads
+     */
+    public List<String> getIncludes() {
+        return List.of(releaseFolder + "/Terminology/*", releaseFolder + "/Refset/Language/*");
+    }
+
+    /**
+     * @return the mode whose release folder is read instead when a release has no folder of this mode, or null
+     */
+    public LoadMode getFallback() {
+        return this == SNAPSHOT ? FULL : null;
+    }
+
+    /**
+     * @return true if rows whose version is already in the datastore are skipped
+     */
+    public boolean isIncremental() {
+        return this == DELTA;
+    }
+
+    /**
+     * @return true if only the latest version of each component is kept
+     */
+    public boolean isLatestVersionOnly() {
+        return this == SNAPSHOT;
+    }
+}
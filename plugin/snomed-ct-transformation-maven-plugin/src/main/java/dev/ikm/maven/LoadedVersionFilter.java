@@ -0,0 +1,62 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.common.service.PrimitiveData;
+import dev.ikm.tinkar.entity.Entity;
+import dev.ikm.tinkar.entity.EntityService;
+import dev.ikm.tinkar.entity.EntityVersion;
+
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Passes the RF2 rows whose version is not yet in the datastore, so a Delta release can be applied to a datastore that
+ * already holds earlier releases. A row is already loaded when the chronology the row is composed onto has a version
+ * with the row's effective time. That is the component named by the id column, or for files such as the identifier
+ * file, whose rows are composed onto the concept of another column, that concept. Used as an
+ * {@link Rf2Reader#filter(Predicate)}, it leaves out the components whose versions are all loaded, and hands out every
+ * row of the others.
+ */
+public class LoadedVersionFilter implements Predicate<Rf2Row> {
+    private static final int ID = 0;
+    private static final int EFFECTIVE_TIME = 1;
+
+    private final UUID namespace;
+    private final int chronologyColumn;
+
+    public LoadedVersionFilter(UUID namespace) {
+        this(namespace, ID);
+    }
+
+    /**
+     * @param namespace namespace of the run
+     * @param chronologyColumn column naming the chronology a row is composed onto, the id column or a column of SCTIDs
+     */
+    public LoadedVersionFilter(UUID namespace, int chronologyColumn) {
+        this.namespace = namespace;
+        this.chronologyColumn = chronologyColumn;
+    }
+
+    /**
+     * @param row RF2 row
+     * @return true if the row's version still has to be loaded
+     */
+    @Override
+    public boolean test(Rf2Row row) {
+        UUID componentUuid = chronologyColumn == ID
+                ? SnomedUtility.generateUUID(namespace, row.string(ID))
+                : TransformationHelper.getMetadataConcept(namespace, row.longValue(chronologyColumn)).asUuidArray()[0];
+        if (!PrimitiveData.get().hasUuid(componentUuid)) {
+            return true;
+        }
+        long time = TransformationHelper.getEpochTime(row.intValue(EFFECTIVE_TIME));
+        Entity<EntityVersion> entity = EntityService.get().getEntityFast(componentUuid);
+        if (entity != null) {
+            for (EntityVersion version : entity.versions()) {
+                if (version.stamp().time() == time) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,105 @@
+package dev.ikm.maven;
+
+import java.util.function.LongFunction;
+
+/**
+ * Small long-keyed dictionary for columns with few distinct values. Lookups read an immutable open-addressing table
+ * without locking; the rare insert copies the table and publishes the copy.
+ *
+ * @param <V> type of the dictionary values
+ */
+public class LongDictionary<V> {
+    private volatile Table table = new Table(16);
+
+    /**
+     * @param key key to look up
+     * @return the value for the key, or null if it has not been added
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        Table current = table;
+        int mask = current.keys.length - 1;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            Object value = current.values[slot];
+            if (value == null) {
+                return null;
+            }
+            if (current.keys[slot] == key) {
+                return (V) value;
+            }
+        }
+    }
+
+    /**
+     * @param key key to look up
+     * @param valueFunction creates the value the first time a key is seen
+     * @return the value for the key
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> valueFunction) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        synchronized (this) {
+            value = get(key);
+            if (value == null) {
+                value = valueFunction.apply(key);
+                put(key, value);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * @param key key to add
+     * @param value value for the key
+     */
+    public synchronized void put(long key, V value) {
+        Table current = table;
+        int capacity = current.keys.length;
+        Table copy = new Table((current.size + 1) * 2 > capacity ? capacity * 2 : capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            if (current.values[slot] != null) {
+                copy.insert(current.keys[slot], current.values[slot]);
+            }
+        }
+        copy.insert(key, value);
+        table = copy;
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static class Table {
+        private final long[] keys;
+        private final Object[] values;
+        private int size;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+        }
+
+        void insert(long key, Object value) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+                if (values[slot] == null) {
+                    keys[slot] = key;
+                    values[slot] = value;
+                    size++;
+                    return;
+                }
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.common.service.PrimitiveData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Assigns nids to the UUIDs of the concepts, descriptions, text definitions, OWL axioms and language refset members
+ * of a release before any file is transformed, so the transform loop finds every nid already in the datastore's
+ * nid map instead of growing it one UUID at a time. Ids are read with the file reader, one row per component, and
+ * handed out in batches to a fixed pool of workers that generate the UUIDs and register them; only a few batches
+ * are in flight at a time. In hierarchy order, nids are instead assigned one after the other with the concepts in
+ * breadth-first is-a order, each concept followed by its descriptions, text definitions, axioms and the language
+ * members of its descriptions, so components that are read together sit next to each other in the datastore.
+ */
+public class NidRegistrar {
+    private static final Logger LOG = LoggerFactory.getLogger(NidRegistrar.class.getSimpleName());
+    private static final int BATCH_SIZE = 64 * 1024;
+    private static final int ID = 0;
+    private static final int CONCEPT_ID = 4;
+    private static final int REFERENCED_COMPONENT_ID = 5;
+    // in the order the files are read in hierarchy order: concepts first, descriptions before language members
+    private static final List<String> COMPONENTS = List.of("Concept", "Description", "TextDefinition", "OWLExpression", "Language");
+
+    private final UUID namespace;
+    private final int workerCount;
+    private final LongAdder registered = new LongAdder();
+    private boolean hierarchyOrdered;
+
+    /**
+     * @param namespace namespace the component UUIDs are generated in
+     * @param workerCount number of batches registered at the same time
+     */
+    public NidRegistrar(UUID namespace, int workerCount) {
+        this.namespace = namespace;
+        this.workerCount = Math.max(1, workerCount);
+    }
+
+    /**
+     * @param hierarchyOrdered assign nids in breadth-first is-a order of the concepts rather than in parallel
+     * @return this registrar
+     */
+    public NidRegistrar hierarchyOrdered(boolean hierarchyOrdered) {
+        this.hierarchyOrdered = hierarchyOrdered;
+        return this;
+    }
+
+    /**
+     * @param files RF2 files of the release; files of other components are skipped
+     * @return number of ids registered
+     */
+    public long register(List<Path> files) {
+        long start = System.currentTimeMillis();
+        if (hierarchyOrdered) {
+            try {
+                registerInHierarchyOrder(files);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            LOG.info("Registered nids for " + registered.sum() + " components in hierarchy order in " + (System.currentTimeMillis() - start) + " ms");
+            return registered.sum();
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "snomed-nid-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Semaphore inFlight = new Semaphore(workerCount * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (Path file : files) {
+                Rf2FileName fileName = Rf2FileName.parse(file.getFileName().toString());
+                if (fileName == null || !COMPONENTS.contains(fileName.component())) {
+                    continue;
+                }
+                Batch[] batch = {new Batch()};
+                new Rf2Reader(file).latestVersionOnly(true).forEachRow(row -> {
+                    batch[0].add(row);
+                    if (batch[0].isFull()) {
+                        futures.add(submit(executor, inFlight, batch[0]));
+                        batch[0] = new Batch();
+                    }
+                });
+                futures.add(submit(executor, inFlight, batch[0]));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (IOException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+        LOG.info("Registered nids for " + registered.sum() + " components in " + (System.currentTimeMillis() - start) + " ms");
+        return registered.sum();
+    }
+
+    /**
+     * Collects the UUID of every component with the rank of the concept it belongs to, then registers them by rank.
+     * Files are read concepts first, so a concept comes before its semantics, and descriptions before language
+     * members, which are placed by the concept of their description.
+     */
+    private void registerInHierarchyOrder(List<Path> files) throws IOException {
+        Map<Long, Integer> conceptRanks = HierarchyOrder.conceptRanks(files);
+        int unranked = conceptRanks.size();
+        RankedUuids uuids = new RankedUuids(unranked + 1);
+        Map<Long, Integer> descriptionRanks = new HashMap<>();
+        for (String component : COMPONENTS) {
+            for (Path file : files) {
+                Rf2FileName fileName = Rf2FileName.parse(file.getFileName().toString());
+                if (fileName == null || !fileName.component().equals(component)) {
+                    continue;
+                }
+                new Rf2Reader(file).latestVersionOnly(true).forEachRow(row -> {
+                    int rank = switch (component) {
+                        case "Concept" -> conceptRanks.getOrDefault(row.longValue(ID), unranked);
+                        case "Description", "TextDefinition" -> {
+                            int conceptRank = conceptRanks.getOrDefault(row.longValue(CONCEPT_ID), unranked);
+                            descriptionRanks.put(row.longValue(ID), conceptRank);
+                            yield conceptRank;
+                        }
+                        case "OWLExpression" -> conceptRanks.getOrDefault(row.longValue(REFERENCED_COMPONENT_ID), unranked);
+                        default -> descriptionRanks.getOrDefault(row.longValue(REFERENCED_COMPONENT_ID), unranked);
+                    };
+                    UUID uuid = row.isNumber(ID) ? SnomedUtility.generateUUID(namespace, row.longValue(ID))
+                            : SnomedUtility.generateUUID(namespace, row.string(ID));
+                    uuids.add(rank, uuid);
+                });
+            }
+        }
+        for (int index : uuids.orderByRank()) {
+            PrimitiveData.nid(uuids.get(index));
+        }
+        registered.add(uuids.size);
+    }
+
+    /**
+     * UUIDs with the rank they are registered at, kept in parallel arrays
+     */
+    private static final class RankedUuids {
+        private final int rankCount;
+        private int[] ranks = new int[1024];
+        private long[] mostSignificantBits = new long[1024];
+        private long[] leastSignificantBits = new long[1024];
+        private int size;
+
+        RankedUuids(int rankCount) {
+            this.rankCount = rankCount;
+        }
+
+        void add(int rank, UUID uuid) {
+            if (size == ranks.length) {
+                ranks = Arrays.copyOf(ranks, size * 2);
+                mostSignificantBits = Arrays.copyOf(mostSignificantBits, size * 2);
+                leastSignificantBits = Arrays.copyOf(leastSignificantBits, size * 2);
+            }
+            ranks[size] = rank;
+            mostSignificantBits[size] = uuid.getMostSignificantBits();
+            leastSignificantBits[size] = uuid.getLeastSignificantBits();
+            size++;
+        }
+
+        UUID get(int index) {
+            return new UUID(mostSignificantBits[index], leastSignificantBits[index]);
+        }
+
+        /**
+         * @return indexes of the UUIDs sorted by rank with a counting sort, UUIDs of equal rank in the order they were added
+         */
+        int[] orderByRank() {
+            int[] starts = new int[rankCount + 1];
+            for (int i = 0; i < size; i++) {
+                starts[ranks[i] + 1]++;
+            }
+            for (int rank = 0; rank < rankCount; rank++) {
+                starts[rank + 1] += starts[rank];
+            }
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[starts[ranks[i]]++] = i;
+            }
+            return order;
+        }
+    }
+
+    private Future<?> submit(ExecutorService executor, Semaphore inFlight, Batch batch) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        return executor.submit(() -> {
+            try {
+                batch.register();
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Ids of up to {@link #BATCH_SIZE} components, SCTIDs kept as longs and other ids, such as refset member UUIDs,
+     * as strings
+     */
+    private final class Batch {
+        private final long[] sctids = new long[BATCH_SIZE];
+        private final List<String> otherIds = new ArrayList<>();
+        private int sctidCount;
+
+        void add(Rf2Row row) {
+            if (row.isNumber(ID)) {
+                sctids[sctidCount++] = row.longValue(ID);
+            } else {
+                otherIds.add(row.string(ID));
+            }
+        }
+
+        boolean isFull() {
+            return sctidCount + otherIds.size() == BATCH_SIZE;
+        }
+
+        void register() {
+            for (int i = 0; i < sctidCount; i++) {
+                PrimitiveData.nid(SnomedUtility.generateUUID(namespace, sctids[i]));
+            }
+            for (String id : otherIds) {
+                PrimitiveData.nid(SnomedUtility.generateUUID(namespace, id));
+            }
+            registered.add(sctidCount + otherIds.size());
+        }
+    }
+}
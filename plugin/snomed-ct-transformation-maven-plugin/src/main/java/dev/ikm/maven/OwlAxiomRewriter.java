@@ -0,0 +1,152 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.common.id.PublicIds;
+import dev.ikm.tinkar.common.util.uuid.UuidT5Generator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Rewrites the identifiers of an OWL functional syntax axiom to public ids in a single pass, producing exactly what
+ * the two regular expressions used before produced: every full IRI {@code <[^>]+>} first becomes the public id of the
+ * IRI, then every run of digits directly after a colon, {@code (?<=:)[0-9]+}, becomes the public id of that SCTID.
+ * The output is built in a reusable buffer, so a rewriter is not thread safe.
+ */
+public class OwlAxiomRewriter {
+    private static final String PUBLIC_ID_PREFIX;
+    private static final String PUBLIC_ID_SUFFIX;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    static {
+        // learn how a single UUID public id prints, so it can be written without creating the public id
+        UUID probe = new UUID(0x0123456789abcdefL, 0xfedcba9876543210L);
+        String probeString = publicIdString(probe);
+        int uuidStart = probeString.indexOf(probe.toString());
+        UUID check = new UUID(0x7777777777777777L, 0x8888888888888888L);
+        String prefix = uuidStart < 0 ? null : probeString.substring(0, uuidStart);
+        String suffix = uuidStart < 0 ? null : probeString.substring(uuidStart + 36);
+        boolean templateMatches = prefix != null && publicIdString(check).equals(prefix + check + suffix);
+        PUBLIC_ID_PREFIX = templateMatches ? prefix : null;
+        PUBLIC_ID_SUFFIX = templateMatches ? suffix : null;
+    }
+
+    private final UUID namespace;
+    private final Map<String, String> iriReplacements = new HashMap<>();
+    private final StringBuilder output = new StringBuilder(1024);
+    private final StringBuilder id = new StringBuilder(20);
+    private char previous;
+    private boolean inId;
+
+    public OwlAxiomRewriter(UUID namespace) {
+        this.namespace = namespace;
+    }
+
+    public UUID getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * @param owlExpression OWL functional syntax with SCTIDs and full IRIs
+     * @return the expression with public ids in their place
+     */
+    public String rewrite(CharSequence owlExpression) {
+        output.setLength(0);
+        previous = 0;
+        inId = false;
+        int length = owlExpression.length();
+        int i = 0;
+        while (i < length) {
+            char c = owlExpression.charAt(i);
+            if (c == '<') {
+                int iriEnd = indexOf(owlExpression, '>', i + 1);
+                if (iriEnd > i + 1) {
+                    String replacement = iriReplacements.computeIfAbsent(owlExpression.subSequence(i + 1, iriEnd).toString(),
+                            iri -> "<" + publicIdString(UuidT5Generator.get(namespace, iri)) + ">");
+                    for (int j = 0; j < replacement.length(); j++) {
+                        next(replacement.charAt(j));
+                    }
+                    i = iriEnd + 1;
+                    continue;
+                }
+            }
+            next(c);
+            i++;
+        }
+        if (inId) {
+            writeId();
+        }
+        return output.toString();
+    }
+
+    /**
+     * Takes the next character of the IRI-rewritten expression, collecting digit runs that follow a colon
+     */
+    private void next(char c) {
+        boolean digit = c >= '0' && c <= '9';
+        if (inId) {
+            if (digit) {
+                id.append(c);
+                previous = c;
+                return;
+            }
+            writeId();
+        } else if (digit && previous == ':') {
+            inId = true;
+            id.setLength(0);
+            id.append(c);
+            previous = c;
+            return;
+        }
+        output.append(c);
+        previous = c;
+    }
+
+    private void writeId() {
+        inId = false;
+        UUID uuid;
+        if (id.length() <= 18 && id.charAt(0) != '0') {
+            long sctid = 0;
+            for (int i = 0; i < id.length(); i++) {
+                sctid = sctid * 10 + (id.charAt(i) - '0');
+            }
+            uuid = SnomedUtility.generateUUID(namespace, sctid);
+        } else {
+            uuid = SnomedUtility.generateUUID(namespace, id.toString());
+        }
+        if (PUBLIC_ID_PREFIX == null) {
+            output.append(publicIdString(uuid));
+            return;
+        }
+        output.append(PUBLIC_ID_PREFIX);
+        appendHex(uuid.getMostSignificantBits() >>> 32, 8);
+        output.append('-');
+        appendHex(uuid.getMostSignificantBits() >>> 16, 4);
+        output.append('-');
+        appendHex(uuid.getMostSignificantBits(), 4);
+        output.append('-');
+        appendHex(uuid.getLeastSignificantBits() >>> 48, 4);
+        output.append('-');
+        appendHex(uuid.getLeastSignificantBits(), 12);
+        output.append(PUBLIC_ID_SUFFIX);
+    }
+
+    private void appendHex(long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            output.append(HEX_DIGITS[(int) (value >>> shift) & 0xF]);
+        }
+    }
+
+    private static int indexOf(CharSequence text, char c, int from) {
+        for (int i = from; i < text.length(); i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String publicIdString(UUID uuid) {
+        return PublicIds.of(uuid).toString().replace("\"", "");
+    }
+}
@@ -0,0 +1,448 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.common.id.IntIds;
+import dev.ikm.tinkar.common.id.PublicIds;
+import dev.ikm.tinkar.common.util.uuid.UuidT5Generator;
+import dev.ikm.tinkar.composer.Composer;
+import dev.ikm.tinkar.entity.graph.adaptor.axiom.LogicalAxiom;
+import dev.ikm.tinkar.entity.graph.adaptor.axiom.LogicalExpression;
+import dev.ikm.tinkar.entity.graph.adaptor.axiom.LogicalExpressionBuilder;
+import dev.ikm.tinkar.terms.EntityProxy;
+import dev.ikm.tinkar.terms.State;
+import dev.ikm.tinkar.terms.TinkarTerm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Builds the EL++ inferred axioms and the inferred navigation of every concept from the inferred relationships of the
+ * release, so a build that trusts the release's classification does not have to run the reasoner. Each semantic gets
+ * a version for every effective time at which the concept's inferred relationships, or its definition status read from
+ * the concept file next to the relationship file, change what it holds. Concrete values cannot be written as roles, so
+ * a release with inferred concrete values, like a delta or a relationship file without its concept file, fails the
+ * transformation rather than leaving the concepts without inferred axioms; such a release is left to the reasoner.
+ */
+public class RelationshipTransformer extends AbstractTransformer {
+    private static final Logger LOG = LoggerFactory.getLogger(RelationshipTransformer.class.getSimpleName());
+    private static final int ID = 0;
+    private static final int EFFECTIVE_TIME = 1;
+    private static final int ACTIVE = 2;
+    private static final int MODULE_ID = 3;
+    private static final int SOURCE_ID = 4;
+    private static final int DESTINATION_ID = 5;
+    private static final int RELATIONSHIP_GROUP = 6;
+    private static final int TYPE_ID = 7;
+    private static final int CHARACTERISTIC_TYPE_ID = 8;
+    private static final int DEFINITION_STATUS_ID = 4;
+    private static final long IS_A = 116680003L;
+    private static final long INFERRED_RELATIONSHIP = 900000000000011006L;
+    private static final long FULLY_DEFINED = 900000000000073002L;
+    private static final String CONCEPT = "Concept";
+    private static final String CONCRETE_VALUES = "RelationshipConcreteValues";
+
+    /**
+     * One version of a relationship
+     */
+    record Relationship(boolean active, long time, long moduleId, long sourceId, long destinationId,
+                        int group, long typeId, long characteristicTypeId) {
+        boolean isA() {
+            return typeId == IS_A;
+        }
+
+        boolean isInferred() {
+            return characteristicTypeId == INFERRED_RELATIONSHIP;
+        }
+
+        /**
+         * @return true if this version makes the relationship an inferred relationship of the concept
+         */
+        boolean isInferredFrom(long conceptId) {
+            return active && isInferred() && sourceId == conceptId;
+        }
+    }
+
+    /**
+     * One version of the definition status of a concept
+     */
+    record DefinitionStatus(long time, long moduleId, boolean fullyDefined) {
+    }
+
+    /**
+     * A role of an inferred definition, the destination of an is-a relationship being a parent
+     */
+    record Role(int group, long typeId, long destinationId) {
+    }
+
+    /**
+     * What the inferred axioms of a concept are built from
+     */
+    record Definition(boolean fullyDefined, Set<Role> roles) {
+    }
+
+    /**
+     * What the inferred navigation of a concept holds
+     */
+    record Navigation(Set<Long> childIds, Set<Long> parentIds) {
+    }
+
+    /**
+     * One version of an inferred semantic; a retired semantic keeps the content of its last active version
+     */
+    record InferredVersion<T>(boolean active, long time, long moduleId, T content) {
+    }
+
+    /**
+     * The versions of every relationship that is inferred from a concept or makes it a parent, each sorted by effective
+     * time from the relationship's first inferred version on
+     */
+    static class InferredConcept {
+        final List<List<Relationship>> relationships = new ArrayList<>();
+        final List<List<Relationship>> children = new ArrayList<>();
+
+        private int versionCount(List<List<Relationship>> histories) {
+            return histories.stream().mapToInt(List::size).sum();
+        }
+    }
+
+    public RelationshipTransformer(UUID namespace) {
+        super(namespace);
+    }
+
+    /**
+     * Relationships are written onto concept chronologies, so the concept file has to be done first
+     */
+    @Override
+    public Set<Class<?>> dependencies() {
+        return Set.of(ConceptTransformer.class);
+    }
+
+    /**
+     * The axioms of a concept are built from all of its relationships, so the file is always read in full
+     */
+    @Override
+    boolean isResumable() {
+        return false;
+    }
+
+    /**
+     * transforms the inferred relationships of a relationship file into EL++ inferred axioms and inferred navigation
+     * @param relationshipFile relationship input txt file
+     * @throws IllegalStateException if the inferred axioms cannot be built from the release, which then has to be
+     * classified by the reasoner
+     */
+    @Override
+    public void transform(Path relationshipFile, Composer composer) {
+        if (loadMode.isIncremental()) {
+            throw new IllegalStateException("Cannot build inferred axioms from " + relationshipFile.getFileName() + ", a " + loadMode
+                    + " load holds only some relationships of a concept, run the reasoner instead");
+        }
+        try {
+            Path conceptFile = releaseFile(relationshipFile, CONCEPT);
+            if (conceptFile == null) {
+                throw new IllegalStateException("Cannot build inferred axioms from " + relationshipFile.getFileName()
+                        + ", there is no concept file next to it to read the definition status from, run the reasoner instead");
+            }
+            Path concreteValuesFile = releaseFile(relationshipFile, CONCRETE_VALUES);
+            if (concreteValuesFile != null && hasInferredRows(concreteValuesFile)) {
+                throw new IllegalStateException("Cannot build inferred axioms from " + relationshipFile.getFileName() + ", the inferred concrete values of "
+                        + concreteValuesFile.getFileName() + " cannot be written as axioms, run the reasoner instead");
+            }
+            Map<Long, List<DefinitionStatus>> definitionStatuses = definitionStatuses(conceptFile);
+            SessionPool sessions = sessions(composer, relationshipFile);
+            RowContext context = new RowContext(namespace, sessions, chronologyWriter);
+            Map<Long, InferredConcept> concepts = inferredConcepts(reader(relationshipFile));
+            concepts.forEach((conceptId, inferredConcept) -> writeConcept(sessions, context, conceptId, inferredConcept,
+                    definitionStatuses.getOrDefault(conceptId, List.of())));
+            sessions.complete();
+            LOG.info(relationshipFile.getFileName() + ": " + concepts.size() + " concepts, " + definitionStatuses.size()
+                    + " fully defined in some version, " + sessions);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Keeps the versions of every relationship from its first inferred version on, so a relationship that stops being
+     * inferred leaves the definitions it was part of, and indexes them by the concepts they are inferred from and, for
+     * is-a relationships, the parents they point at
+     * @param reader reader of a relationship file
+     * @return the inferred concepts by concept id
+     * @throws IOException if the file cannot be read
+     */
+    static Map<Long, InferredConcept> inferredConcepts(Rf2Reader reader) throws IOException {
+        Map<Long, InferredConcept> concepts = new HashMap<>();
+        reader.forEachComponent(rows -> {
+            List<Relationship> history = new ArrayList<>(rows.size());
+            for (Rf2Row row : rows) {
+                Relationship relationship = new Relationship(row.booleanValue(ACTIVE),
+                        TransformationHelper.getEpochTime(row.intValue(EFFECTIVE_TIME)), row.longValue(MODULE_ID),
+                        row.longValue(SOURCE_ID), row.longValue(DESTINATION_ID), row.intValue(RELATIONSHIP_GROUP),
+                        row.longValue(TYPE_ID), row.longValue(CHARACTERISTIC_TYPE_ID));
+                if (!history.isEmpty() || relationship.isInferred()) {
+                    history.add(relationship);
+                }
+            }
+            if (history.isEmpty()) {
+                return;
+            }
+            Set<Long> sourceIds = new HashSet<>();
+            Set<Long> parentIds = new HashSet<>();
+            for (Relationship relationship : history) {
+                sourceIds.add(relationship.sourceId());
+                if (relationship.isA()) {
+                    parentIds.add(relationship.destinationId());
+                }
+            }
+            sourceIds.forEach(id -> concepts.computeIfAbsent(id, key -> new InferredConcept()).relationships.add(history));
+            parentIds.forEach(id -> concepts.computeIfAbsent(id, key -> new InferredConcept()).children.add(history));
+        });
+        return concepts;
+    }
+
+    /**
+     * @return the file of a component in the folder of an RF2 file, from the same release type, or null if there is none
+     */
+    private static Path releaseFile(Path file, String component) throws IOException {
+        String releaseType = Rf2FileName.parse(file.getFileName().toString()).releaseType();
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            return files.filter(sibling -> {
+                        Rf2FileName fileName = Rf2FileName.parse(sibling.getFileName().toString());
+                        return fileName != null && fileName.component().equals(component) && fileName.releaseType().equals(releaseType);
+                    })
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    private Rf2Reader rows(Path file, boolean latestVersionOnly) throws IOException {
+        return new Rf2Reader(sorter == null ? file : sorter.sorted(file)).latestVersionOnly(latestVersionOnly);
+    }
+
+    /**
+     * @return true if the latest version of any row of a relationship or concrete value file is active and inferred
+     */
+    private boolean hasInferredRows(Path file) throws IOException {
+        boolean[] inferred = new boolean[1];
+        rows(file, true).forEachRow(row -> inferred[0] |= row.booleanValue(ACTIVE)
+                && row.longValue(CHARACTERISTIC_TYPE_ID) == INFERRED_RELATIONSHIP);
+        return inferred[0];
+    }
+
+    /**
+     * @return the definition status versions of the concepts that are fully defined in any of their versions, sorted
+     * by effective time; every other concept is primitive throughout
+     */
+    private Map<Long, List<DefinitionStatus>> definitionStatuses(Path conceptFile) throws IOException {
+        Map<Long, List<DefinitionStatus>> definitionStatuses = new HashMap<>();
+        rows(conceptFile, loadMode.isLatestVersionOnly()).forEachComponent(rows -> {
+            List<DefinitionStatus> statuses = rows.stream()
+                    .map(row -> new DefinitionStatus(TransformationHelper.getEpochTime(row.intValue(EFFECTIVE_TIME)),
+                            row.longValue(MODULE_ID), row.longValue(DEFINITION_STATUS_ID) == FULLY_DEFINED))
+                    .toList();
+            if (statuses.stream().anyMatch(DefinitionStatus::fullyDefined)) {
+                definitionStatuses.put(rows.get(0).longValue(ID), statuses);
+            }
+        });
+        return definitionStatuses;
+    }
+
+    /**
+     * @param definitionStatuses definition status versions of the concept, empty if it is never fully defined
+     * @return a version of the concept's inferred axioms for every effective time at which its inferred roles or its
+     * definition status change
+     */
+    static List<InferredVersion<Definition>> definitionVersions(long conceptId, InferredConcept inferredConcept,
+                                                                 List<DefinitionStatus> definitionStatuses) {
+        NavigableMap<Long, Long> modules = new TreeMap<>();
+        inferredConcept.relationships.forEach(history -> history.forEach(version -> modules.put(version.time(), version.moduleId())));
+        definitionStatuses.forEach(status -> modules.putIfAbsent(status.time(), status.moduleId()));
+        return versions(modules, time -> {
+            Set<Role> roles = new HashSet<>();
+            for (List<Relationship> history : inferredConcept.relationships) {
+                Relationship version = versionAt(history, time);
+                if (version != null && version.isInferredFrom(conceptId)) {
+                    roles.add(new Role(version.isA() ? 0 : version.group(), version.typeId(), version.destinationId()));
+                }
+            }
+            DefinitionStatus status = null;
+            for (DefinitionStatus definitionStatus : definitionStatuses) {
+                if (definitionStatus.time() <= time) {
+                    status = definitionStatus;
+                }
+            }
+            return roles.isEmpty() ? null : new Definition(status != null && status.fullyDefined(), roles);
+        });
+    }
+
+    /**
+     * @return a version of the concept's inferred navigation for every effective time at which its inferred parents or
+     * children change
+     */
+    static List<InferredVersion<Navigation>> navigationVersions(long conceptId, InferredConcept inferredConcept) {
+        NavigableMap<Long, Long> modules = new TreeMap<>();
+        inferredConcept.relationships.forEach(history -> history.stream()
+                .filter(Relationship::isA)
+                .forEach(version -> modules.put(version.time(), version.moduleId())));
+        inferredConcept.children.forEach(history -> history.forEach(version -> modules.put(version.time(), version.moduleId())));
+        return versions(modules, time -> {
+            Set<Long> parentIds = new HashSet<>();
+            for (List<Relationship> history : inferredConcept.relationships) {
+                Relationship version = versionAt(history, time);
+                if (version != null && version.isA() && version.isInferredFrom(conceptId)) {
+                    parentIds.add(version.destinationId());
+                }
+            }
+            Set<Long> childIds = new HashSet<>();
+            for (List<Relationship> history : inferredConcept.children) {
+                Relationship version = versionAt(history, time);
+                if (version != null && version.isA() && version.active() && version.isInferred() && version.destinationId() == conceptId) {
+                    childIds.add(version.sourceId());
+                }
+            }
+            return parentIds.isEmpty() && childIds.isEmpty() ? null : new Navigation(childIds, parentIds);
+        });
+    }
+
+    /**
+     * @return the version of a relationship in effect at a time, or null if it has none yet
+     */
+    private static Relationship versionAt(List<Relationship> history, long time) {
+        Relationship inEffect = null;
+        for (Relationship version : history) {
+            if (version.time() > time) {
+                break;
+            }
+            inEffect = version;
+        }
+        return inEffect;
+    }
+
+    /**
+     * Walks the effective times of the rows a semantic is built from and adds a version whenever what the semantic
+     * holds changes; once it holds nothing the semantic is retired with the content of its last version
+     * @param modules module of a row of each effective time, which stamps the version of that time
+     * @param content what the semantic holds at an effective time, or null if nothing
+     */
+    private static <T> List<InferredVersion<T>> versions(NavigableMap<Long, Long> modules, LongFunction<T> content) {
+        List<InferredVersion<T>> versions = new ArrayList<>();
+        InferredVersion<T> last = null;
+        for (Map.Entry<Long, Long> entry : modules.entrySet()) {
+            T contentAtTime = content.apply(entry.getKey());
+            InferredVersion<T> version;
+            if (contentAtTime != null) {
+                version = new InferredVersion<>(true, entry.getKey(), entry.getValue(), contentAtTime);
+            } else if (last != null) {
+                version = new InferredVersion<>(false, entry.getKey(), entry.getValue(), last.content());
+            } else {
+                continue;
+            }
+            if (last == null || last.active() != version.active() || !last.content().equals(version.content())) {
+                versions.add(version);
+                last = version;
+            }
+        }
+        return versions;
+    }
+
+    private void writeConcept(SessionPool sessions, RowContext context, long conceptId, InferredConcept inferredConcept,
+                              List<DefinitionStatus> definitionStatuses) {
+        List<InferredVersion<Definition>> definitionVersions = definitionVersions(conceptId, inferredConcept, definitionStatuses);
+        List<InferredVersion<Navigation>> navigationVersions = navigationVersions(conceptId, inferredConcept);
+        if (definitionVersions.isEmpty() && navigationVersions.isEmpty()) {
+            return;
+        }
+        UUID conceptUuid = SnomedUtility.generateUUID(namespace, conceptId);
+        EntityProxy.Concept concept = EntityProxy.Concept.make(PublicIds.of(conceptUuid));
+        // sized like the relationship rows the concept's axioms and navigation are built from
+        sessions.nextChronology(conceptId, inferredConcept.versionCount(inferredConcept.relationships) * 64L
+                + inferredConcept.versionCount(inferredConcept.children) * 8L);
+
+        EntityProxy.Semantic inferredAxioms = EntityProxy.Semantic.make(PublicIds.of(
+                UuidT5Generator.get(TinkarTerm.EL_PLUS_PLUS_INFERRED_AXIOMS_PATTERN.asUuidArray()[0], conceptUuid.toString())));
+        RowContext.SemanticVersions axiomVersions = context.semantic(inferredAxioms, TinkarTerm.EL_PLUS_PLUS_INFERRED_AXIOMS_PATTERN, concept);
+        for (InferredVersion<Definition> version : latest(definitionVersions)) {
+            axiomVersions.version(status(version), version.time(), version.moduleId(),
+                    logicalExpression(version.content()).sourceGraph());
+        }
+        axiomVersions.write();
+
+        EntityProxy.Semantic navigation = EntityProxy.Semantic.make(PublicIds.of(
+                UuidT5Generator.get(TinkarTerm.INFERRED_NAVIGATION_PATTERN.asUuidArray()[0], conceptUuid.toString())));
+        RowContext.SemanticVersions navigationVersionsToWrite = context.semantic(navigation, TinkarTerm.INFERRED_NAVIGATION_PATTERN, concept);
+        for (InferredVersion<Navigation> version : latest(navigationVersions)) {
+            navigationVersionsToWrite.version(status(version), version.time(), version.moduleId(),
+                    IntIds.set.of(version.content().childIds().stream().mapToInt(this::nid).toArray()),
+                    IntIds.set.of(version.content().parentIds().stream().mapToInt(this::nid).toArray()));
+        }
+        navigationVersionsToWrite.write();
+    }
+
+    /**
+     * @return the versions to write: all of them, or in a snapshot load only the latest
+     */
+    private <T> List<InferredVersion<T>> latest(List<InferredVersion<T>> versions) {
+        return loadMode.isLatestVersionOnly() && versions.size() > 1 ? versions.subList(versions.size() - 1, versions.size()) : versions;
+    }
+
+    private static State status(InferredVersion<?> version) {
+        return version.active() ? State.ACTIVE : State.INACTIVE;
+    }
+
+    /**
+     * Builds the definition of a concept, a sufficient set if it is fully defined and a necessary set otherwise: its
+     * parents and ungrouped roles directly, and every relationship group as a role group of its roles
+     */
+    private LogicalExpression logicalExpression(Definition definition) {
+        LogicalExpressionBuilder builder = new LogicalExpressionBuilder();
+        List<LogicalAxiom.Atom> atoms = new ArrayList<>();
+        Map<Integer, List<LogicalAxiom.Atom>> roleGroups = new TreeMap<>();
+        List<Role> roles = definition.roles().stream()
+                .sorted(Comparator.comparingInt(Role::group).thenComparingLong(Role::typeId).thenComparingLong(Role::destinationId))
+                .toList();
+        for (Role role : roles) {
+            LogicalAxiom.Atom destination = builder.ConceptAxiom(concept(role.destinationId()));
+            if (role.typeId() == IS_A) {
+                atoms.add(destination);
+            } else {
+                LogicalAxiom.Atom someRole = builder.SomeRole(TransformationHelper.getMetadataConcept(namespace, role.typeId()), destination);
+                if (role.group() == 0) {
+                    atoms.add(someRole);
+                } else {
+                    roleGroups.computeIfAbsent(role.group(), group -> new ArrayList<>()).add(someRole);
+                }
+            }
+        }
+        roleGroups.values().forEach(groupRoles -> atoms.add(builder.SomeRole(TinkarTerm.ROLE_GROUP,
+                builder.And(groupRoles.toArray(LogicalAxiom.Atom[]::new)))));
+        LogicalAxiom.Atom.Connective.And conjunction = builder.And(atoms.toArray(LogicalAxiom.Atom[]::new));
+        if (definition.fullyDefined()) {
+            builder.SufficientSet(conjunction);
+        } else {
+            builder.NecessarySet(conjunction);
+        }
+        return builder.build();
+    }
+
+    private EntityProxy.Concept concept(long sctid) {
+        return EntityProxy.Concept.make(PublicIds.of(SnomedUtility.generateUUID(namespace, sctid)));
+    }
+
+    private int nid(long sctid) {
+        return concept(sctid).nid();
+    }
+}
@@ -0,0 +1,290 @@
+package dev.ikm.maven;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Memory-mapped view of an RF2 file staged by {@link Rf2ColumnarWriter}. Every column is stored on its own:
+ * effective times as ints, active flags as bits, ids as longs, columns with few distinct values as dictionary codes
+ * and the remaining text, such as terms and OWL expressions, as offsets into a UTF-8 heap. Values are read by row
+ * index straight from the mapped columns without tokenizing any text. A file can be read from any number of threads
+ * until it is closed.
+ */
+public class Rf2ColumnarFile implements AutoCloseable {
+    static final int MAGIC = 0x52463243; // RF2C
+    static final int VERSION = 2;
+
+    /**
+     * how a column is stored
+     */
+    enum ColumnType {
+        DATE, FLAG, LONG, DICTIONARY, STRING
+    }
+
+    private final int rowCount;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final long sourceChecksum;
+    private final FileChannel channel;
+    private final String[] names;
+    private final ColumnType[] types;
+    private final ByteBuffer[] sections;
+    private final String[][] dictionaries;
+    private final long[][] dictionaryLongs;
+    private final int[] stringHeapStarts;
+
+    private Rf2ColumnarFile(Path stagedFile) throws IOException {
+        channel = FileChannel.open(stagedFile, StandardOpenOption.READ);
+        try (DataInputStream header = new DataInputStream(Files.newInputStream(stagedFile))) {
+            if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+                throw new IOException("Not a staged RF2 file: " + stagedFile);
+            }
+            rowCount = header.readInt();
+            int columnCount = header.readInt();
+            sourceSize = header.readLong();
+            sourceModified = header.readLong();
+            sourceChecksum = header.readLong();
+            names = new String[columnCount];
+            types = new ColumnType[columnCount];
+            sections = new ByteBuffer[columnCount];
+            dictionaries = new String[columnCount][];
+            dictionaryLongs = new long[columnCount][];
+            stringHeapStarts = new int[columnCount];
+            for (int column = 0; column < columnCount; column++) {
+                types[column] = ColumnType.values()[header.readByte()];
+                names[column] = header.readUTF();
+                long offset = header.readLong();
+                long length = header.readLong();
+                sections[column] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        for (int column = 0; column < names.length; column++) {
+            if (types[column] == ColumnType.DICTIONARY) {
+                readDictionary(column);
+            } else if (types[column] == ColumnType.STRING) {
+                stringHeapStarts[column] = (rowCount + 1) * Integer.BYTES;
+            }
+        }
+    }
+
+    /**
+     * @param stagedFile file written by {@link Rf2ColumnarWriter}
+     * @return the mapped file
+     * @throws IOException if the file cannot be read or is not a staged RF2 file
+     */
+    public static Rf2ColumnarFile open(Path stagedFile) throws IOException {
+        return new Rf2ColumnarFile(stagedFile);
+    }
+
+    /**
+     * The modification time is not compared, as it differs between a zip entry and its extracted copy. The checksum is
+     * only computed when the sizes match, so a changed file of another size is told apart without reading it.
+     * @param stagedFile file that may have been written by {@link Rf2ColumnarWriter}
+     * @param source RF2 file it was staged from
+     * @return true if the staged file exists and was written from a file of the source's size and checksum
+     */
+    public static boolean isCurrent(Path stagedFile, Path source) {
+        if (!Files.isRegularFile(stagedFile)) {
+            return false;
+        }
+        long size;
+        long checksum;
+        try (InputStream in = Files.newInputStream(stagedFile);
+             DataInputStream header = new DataInputStream(in)) {
+            if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+                return false;
+            }
+            header.readInt();
+            header.readInt();
+            size = header.readLong();
+            header.readLong();
+            checksum = header.readLong();
+        } catch (IOException e) {
+            return false;
+        }
+        try {
+            return size == Files.size(source) && checksum == checksum(source);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param file file on disk or inside a zip file system
+     * @return CRC-32C of the content of the file
+     * @throws IOException if the file cannot be read
+     */
+    static long checksum(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[1024 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Closes the staged file and drops the mapped columns, which are unmapped once they are collected
+     */
+    @Override
+    public void close() {
+        Arrays.fill(sections, null);
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void readDictionary(int column) {
+        ByteBuffer section = sections[column];
+        int entryCount = section.getInt(0);
+        String[] entries = new String[entryCount];
+        long[] longs = new long[entryCount];
+        int position = Integer.BYTES;
+        for (int i = 0; i < entryCount; i++) {
+            int length = section.getInt(position);
+            byte[] bytes = new byte[length];
+            section.get(position + Integer.BYTES, bytes);
+            entries[i] = new String(bytes, StandardCharsets.UTF_8);
+            longs[i] = parseLong(entries[i]);
+            position += Integer.BYTES + length;
+        }
+        dictionaries[column] = entries;
+        dictionaryLongs[column] = longs;
+        sections[column] = section.slice(position, section.limit() - position);
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public int columnCount() {
+        return names.length;
+    }
+
+    /**
+     * @return name of the column in the RF2 header
+     */
+    public String columnName(int column) {
+        return names[column];
+    }
+
+    /**
+     * @return size of the RF2 file the columns were staged from
+     */
+    public long getSourceSize() {
+        return sourceSize;
+    }
+
+    /**
+     * @return last modification time of the RF2 file the columns were staged from, in epoch milliseconds
+     */
+    public long getSourceModified() {
+        return sourceModified;
+    }
+
+    /**
+     * @return CRC-32C of the RF2 file the columns were staged from
+     */
+    public long getSourceChecksum() {
+        return sourceChecksum;
+    }
+
+    /**
+     * @param row row index
+     * @param column column index
+     * @return value of a column of digits, such as an SCTID or effectiveTime
+     */
+    public long longValue(int row, int column) {
+        return switch (types[column]) {
+            case DATE -> sections[column].getInt(row * Integer.BYTES);
+            case FLAG -> booleanValue(row, column) ? 1 : 0;
+            case LONG -> sections[column].getLong(row * Long.BYTES);
+            case DICTIONARY -> dictionaryLongs[column][code(row, column)];
+            case STRING -> Long.parseLong(string(row, column));
+        };
+    }
+
+    /**
+     * @param row row index
+     * @param column column index
+     * @return value of a column of digits, such as an effectiveTime in yyyyMMdd format
+     */
+    public int intValue(int row, int column) {
+        return types[column] == ColumnType.DATE ? sections[column].getInt(row * Integer.BYTES) : (int) longValue(row, column);
+    }
+
+    /**
+     * @param row row index
+     * @param column column index
+     * @return true if the column is "1", as in the RF2 active column
+     */
+    public boolean booleanValue(int row, int column) {
+        if (types[column] == ColumnType.FLAG) {
+            return (sections[column].getLong((row >>> 6) * Long.BYTES) & (1L << row)) != 0;
+        }
+        return longValue(row, column) == 1;
+    }
+
+    /**
+     * @param row row index
+     * @param column column index
+     * @return the column as it was written in the RF2 file
+     */
+    public String string(int row, int column) {
+        return switch (types[column]) {
+            case DATE -> Integer.toString(intValue(row, column));
+            case FLAG -> booleanValue(row, column) ? "1" : "0";
+            case LONG -> Long.toString(longValue(row, column));
+            case DICTIONARY -> dictionaries[column][code(row, column)];
+            case STRING -> {
+                ByteBuffer section = sections[column];
+                int start = section.getInt(row * Integer.BYTES);
+                int end = section.getInt((row + 1) * Integer.BYTES);
+                byte[] bytes = new byte[end - start];
+                section.get(stringHeapStarts[column] + start, bytes);
+                yield new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    /**
+     * @param row row index
+     * @return every column of a row, as written in the RF2 file
+     */
+    public String[] columns(int row) {
+        String[] columns = new String[names.length];
+        for (int column = 0; column < columns.length; column++) {
+            columns[column] = string(row, column);
+        }
+        return columns;
+    }
+
+    private int code(int row, int column) {
+        return Short.toUnsignedInt(sections[column].getShort(row * Short.BYTES));
+    }
+}
@@ -0,0 +1,291 @@
+package dev.ikm.maven;
+
+import dev.ikm.maven.Rf2ColumnarFile.ColumnType;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts an RF2 file once into the columnar layout read by {@link Rf2ColumnarFile}. The file is parsed in a single
+ * pass; each column starts out as a candidate for both long and dictionary storage and falls back to the UTF-8 string
+ * heap once its values are neither numbers nor few enough to code.
+ */
+public class Rf2ColumnarWriter {
+    public static final String STAGED_EXTENSION = ".rf2c";
+    private static final int MAX_DICTIONARY_SIZE = 4096;
+    private static final String EFFECTIVE_TIME = "effectiveTime";
+    private static final String ACTIVE = "active";
+
+    private Rf2ColumnarWriter() {
+    }
+
+    /**
+     * @param rf2File RF2 file
+     * @param stagingDirectory directory staged files are written to
+     * @return where the file is staged
+     */
+    public static Path stagedFile(Path rf2File, Path stagingDirectory) {
+        String fileName = rf2File.getFileName().toString();
+        return stagingDirectory.resolve(fileName.replaceFirst("\\.txt$", "") + STAGED_EXTENSION);
+    }
+
+    /**
+     * Stages an RF2 file unless it is already staged from the same content
+     * @param rf2File RF2 file, on disk or inside a zip file system
+     * @param stagingDirectory directory staged files are written to
+     * @return the staged file
+     * @throws IOException if the file cannot be read or the staged file cannot be written
+     */
+    public static Path stage(Path rf2File, Path stagingDirectory) throws IOException {
+        Path stagedFile = stagedFile(rf2File, stagingDirectory);
+        if (Rf2ColumnarFile.isCurrent(stagedFile, rf2File)) {
+            return stagedFile;
+        }
+        String[] names;
+        try (BufferedReader reader = Files.newBufferedReader(rf2File, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            names = header == null ? new String[0] : header.replace("\r", "").split("\t");
+        }
+        ColumnBuilder[] columns = new ColumnBuilder[names.length];
+        for (int column = 0; column < names.length; column++) {
+            columns[column] = new ColumnBuilder(names[column]);
+        }
+        int[] rowCount = new int[1];
+        new Rf2Reader(rf2File).forEachRow(row -> {
+            for (int column = 0; column < columns.length; column++) {
+                columns[column].add(row, column);
+            }
+            rowCount[0]++;
+        });
+
+        Files.createDirectories(stagingDirectory);
+        Path temporaryFile = stagedFile.resolveSibling(stagedFile.getFileName() + ".tmp");
+        BasicFileAttributes attributes = Files.readAttributes(rf2File, BasicFileAttributes.class);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile), 1024 * 1024))) {
+            out.writeInt(Rf2ColumnarFile.MAGIC);
+            out.writeInt(Rf2ColumnarFile.VERSION);
+            out.writeInt(rowCount[0]);
+            out.writeInt(columns.length);
+            out.writeLong(attributes.size());
+            out.writeLong(attributes.lastModifiedTime().toMillis());
+            out.writeLong(Rf2ColumnarFile.checksum(rf2File));
+            long offset = 4 * Integer.BYTES + 3 * Long.BYTES;
+            for (ColumnBuilder column : columns) {
+                offset += 1 + 2 + column.name.getBytes(StandardCharsets.UTF_8).length + 2 * Long.BYTES;
+            }
+            for (ColumnBuilder column : columns) {
+                out.writeByte(column.type().ordinal());
+                out.writeUTF(column.name);
+                out.writeLong(offset);
+                out.writeLong(column.sectionLength());
+                offset += column.sectionLength();
+            }
+            for (ColumnBuilder column : columns) {
+                column.writeSection(out);
+            }
+        }
+        Files.move(temporaryFile, stagedFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return stagedFile;
+    }
+
+    /**
+     * Values of one column, kept as longs while every value is a number and as dictionary codes while there are few
+     * distinct values; once both fail, the values are moved to a string heap
+     */
+    private static final class ColumnBuilder {
+        private final String name;
+        private final ColumnType fixedType;
+        private int size;
+        private int[] ints = new int[0];
+        private long[] bits = new long[0];
+        private boolean numeric = true;
+        private long[] longs = new long[1024];
+        private boolean coded = true;
+        private final Map<Long, Integer> longCodes = new HashMap<>();
+        private Map<String, Integer> stringCodes;
+        private final List<String> entries = new ArrayList<>();
+        private short[] codes = new short[1024];
+        private int[] offsets;
+        private byte[] heap;
+        private int heapSize;
+
+        ColumnBuilder(String name) {
+            this.name = name;
+            this.fixedType = switch (name) {
+                case EFFECTIVE_TIME -> ColumnType.DATE;
+                case ACTIVE -> ColumnType.FLAG;
+                default -> null;
+            };
+        }
+
+        void add(Rf2Row row, int column) {
+            if (fixedType == ColumnType.DATE) {
+                ints = grow(ints);
+                ints[size++] = row.intValue(column);
+                return;
+            }
+            if (fixedType == ColumnType.FLAG) {
+                if (bits.length <= size >>> 6) {
+                    bits = Arrays.copyOf(bits, Math.max(16, bits.length * 2));
+                }
+                if (row.booleanValue(column)) {
+                    bits[size >>> 6] |= 1L << size;
+                }
+                size++;
+                return;
+            }
+            if (numeric && !row.isNumber(column)) {
+                numeric = false;
+                if (coded) {
+                    stringCodes = new HashMap<>();
+                    for (int i = 0; i < entries.size(); i++) {
+                        stringCodes.put(entries.get(i), i);
+                    }
+                } else {
+                    moveToHeap();
+                }
+                longs = null;
+            }
+            if (numeric) {
+                if (longs.length == size) {
+                    longs = Arrays.copyOf(longs, size * 2);
+                }
+                longs[size] = row.longValue(column);
+            }
+            if (coded) {
+                Integer code = numeric ? longCodes.get(longs[size]) : stringCodes.get(row.string(column));
+                if (code == null && entries.size() < MAX_DICTIONARY_SIZE) {
+                    code = entries.size();
+                    String entry = row.string(column);
+                    entries.add(entry);
+                    if (numeric) {
+                        longCodes.put(longs[size], code);
+                    } else {
+                        stringCodes.put(entry, code);
+                    }
+                }
+                if (code == null) {
+                    if (!numeric) {
+                        moveToHeap();
+                    }
+                    coded = false;
+                    codes = null;
+                    longCodes.clear();
+                } else {
+                    if (codes.length == size) {
+                        codes = Arrays.copyOf(codes, size * 2);
+                    }
+                    codes[size] = (short) (int) code;
+                }
+            }
+            if (!numeric && !coded) {
+                int length = row.length(column);
+                ensureHeap(length);
+                row.copyBytes(column, heap, heapSize);
+                heapSize += length;
+                offsets[size + 1] = heapSize;
+            }
+            size++;
+        }
+
+        /**
+         * moves the values added so far from the long or dictionary storage still in use to the string heap
+         */
+        private void moveToHeap() {
+            offsets = new int[Math.max(1024, size * 2)];
+            heap = new byte[Math.max(64 * 1024, size * 16)];
+            heapSize = 0;
+            for (int i = 0; i < size; i++) {
+                byte[] value = (coded ? entries.get(codes[i] & 0xFFFF) : Long.toString(longs[i])).getBytes(StandardCharsets.UTF_8);
+                ensureHeap(value.length);
+                System.arraycopy(value, 0, heap, heapSize, value.length);
+                heapSize += value.length;
+                offsets[i + 1] = heapSize;
+            }
+        }
+
+        private void ensureHeap(int length) {
+            if (offsets.length < size + 2) {
+                offsets = Arrays.copyOf(offsets, Math.max(size + 2, offsets.length * 2));
+            }
+            if (heap.length - heapSize < length) {
+                heap = Arrays.copyOf(heap, Math.max(heapSize + length, heap.length * 2));
+            }
+        }
+
+        private int[] grow(int[] values) {
+            return values.length == size ? Arrays.copyOf(values, Math.max(1024, size * 2)) : values;
+        }
+
+        ColumnType type() {
+            if (fixedType != null) {
+                return fixedType;
+            }
+            if (coded) {
+                return ColumnType.DICTIONARY;
+            }
+            return numeric ? ColumnType.LONG : ColumnType.STRING;
+        }
+
+        long sectionLength() {
+            return switch (type()) {
+                case DATE -> (long) size * Integer.BYTES;
+                case FLAG -> (long) ((size + 63) >>> 6) * Long.BYTES;
+                case LONG -> (long) size * Long.BYTES;
+                case DICTIONARY -> Integer.BYTES + entries.stream()
+                        .mapToLong(entry -> Integer.BYTES + entry.getBytes(StandardCharsets.UTF_8).length)
+                        .sum() + (long) size * Short.BYTES;
+                case STRING -> (long) (size + 1) * Integer.BYTES + heapSize;
+            };
+        }
+
+        void writeSection(DataOutputStream out) throws IOException {
+            switch (type()) {
+                case DATE -> {
+                    for (int i = 0; i < size; i++) {
+                        out.writeInt(ints[i]);
+                    }
+                }
+                case FLAG -> {
+                    for (int i = 0; i < (size + 63) >>> 6; i++) {
+                        out.writeLong(bits[i]);
+                    }
+                }
+                case LONG -> {
+                    for (int i = 0; i < size; i++) {
+                        out.writeLong(longs[i]);
+                    }
+                }
+                case DICTIONARY -> {
+                    out.writeInt(entries.size());
+                    for (String entry : entries) {
+                        byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
+                    }
+                    for (int i = 0; i < size; i++) {
+                        out.writeShort(codes[i]);
+                    }
+                }
+                case STRING -> {
+                    for (int i = 0; i <= size; i++) {
+                        out.writeInt(size == 0 ? 0 : offsets[i]);
+                    }
+                    out.write(heap == null ? new byte[0] : heap, 0, heapSize);
+                }
+            }
+        }
+    }
+}
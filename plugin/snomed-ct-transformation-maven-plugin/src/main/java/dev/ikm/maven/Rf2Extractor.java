@@ -0,0 +1,205 @@
+package dev.ikm.maven;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracts the RF2 entries of a release zip that match a set of include patterns, writing entries in parallel.
+ * A marker holding a hash of the zip's central directory and the include patterns is written next to the extracted
+ * files, and a later run against the same zip with the same patterns skips the extraction.
+ */
+public class Rf2Extractor {
+    private static final Logger LOG = LoggerFactory.getLogger(Rf2Extractor.class.getSimpleName());
+    public static final List<String> DEFAULT_INCLUDES = LoadMode.FULL.getIncludes();
+    static final String MARKER_FILE = ".rf2-extraction.sha256";
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final Path zipFile;
+    private final Path outputDirectory;
+    private final List<String> includes;
+    private final List<PathMatcher> matchers = new ArrayList<>();
+    private final int workerCount;
+
+    /**
+     * @param zipFile release zip
+     * @param outputDirectory directory the entries are extracted to
+     * @param includes glob patterns for the entries to extract, matched against the entry name or any trailing part of it
+     * @param workerCount number of entries written at the same time
+     */
+    public Rf2Extractor(Path zipFile, Path outputDirectory, List<String> includes, int workerCount) {
+        this.zipFile = zipFile;
+        this.outputDirectory = outputDirectory;
+        this.includes = includes == null || includes.isEmpty() ? DEFAULT_INCLUDES : List.copyOf(includes);
+        this.workerCount = Math.max(1, workerCount);
+        this.matchers.addAll(matchers(this.includes));
+    }
+
+    /**
+     * A release without a folder of the load mode, such as one shipping only Full files for a snapshot load, is read
+     * from the folder of the mode's fallback instead
+     * @param zipFile release zip
+     * @param loadMode mode of the load
+     * @return patterns of the entries to extract for the load mode
+     * @throws IOException if the zip cannot be read
+     */
+    public static List<String> includes(Path zipFile, LoadMode loadMode) throws IOException {
+        LoadMode fallback = loadMode.getFallback();
+        if (fallback == null) {
+            return loadMode.getIncludes();
+        }
+        List<PathMatcher> matchers = matchers(loadMode.getIncludes());
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            boolean hasEntries = Collections.list(zip.entries()).stream()
+                    .anyMatch(entry -> !entry.isDirectory() && isIncluded(matchers, entry.getName()));
+            if (hasEntries) {
+                return loadMode.getIncludes();
+            }
+        }
+        LOG.info("No " + loadMode.getReleaseFolder() + " entries in " + zipFile.getFileName() + ", extracting the "
+                + fallback.getReleaseFolder() + " entries");
+        return fallback.getIncludes();
+    }
+
+    private static List<PathMatcher> matchers(List<String> includes) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        for (String include : includes) {
+            matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + include));
+            matchers.add(FileSystems.getDefault().getPathMatcher("glob:**/" + include));
+        }
+        return matchers;
+    }
+
+    /**
+     * Extracts the included entries unless the marker shows they have already been extracted from the same content
+     * @return true if entries were written, false if the extraction was skipped
+     * @throws IOException if the zip cannot be read or an entry cannot be written
+     */
+    public boolean extract() throws IOException {
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            List<ZipEntry> entries = new ArrayList<>();
+            Collections.list(zip.entries()).stream()
+                    .filter(entry -> !entry.isDirectory() && isIncluded(entry.getName()))
+                    .forEach(entries::add);
+            String contentHash = contentHash(entries);
+            Path marker = outputDirectory.resolve(MARKER_FILE);
+            if (Files.isRegularFile(marker) && Files.readString(marker).trim().equals(contentHash) && allExtracted(entries)) {
+                LOG.info("Skipping extraction, " + entries.size() + " entries of " + zipFile.getFileName() + " are already extracted");
+                return false;
+            }
+            Files.createDirectories(outputDirectory);
+            Files.deleteIfExists(marker);
+            LOG.info("Extracting " + entries.size() + " entries of " + zipFile.getFileName() + " with " + workerCount + " workers");
+            writeEntries(zip, entries);
+            Files.writeString(marker, contentHash);
+            return true;
+        }
+    }
+
+    private boolean isIncluded(String entryName) {
+        return isIncluded(matchers, entryName);
+    }
+
+    private static boolean isIncluded(List<PathMatcher> matchers, String entryName) {
+        Path entryPath = Path.of(entryName);
+        return matchers.stream().anyMatch(matcher -> matcher.matches(entryPath));
+    }
+
+    private boolean allExtracted(List<ZipEntry> entries) throws IOException {
+        for (ZipEntry entry : entries) {
+            Path file = target(entry);
+            if (!Files.isRegularFile(file) || (entry.getSize() >= 0 && Files.size(file) != entry.getSize())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hashes the name, size and CRC of every included entry as recorded in the central directory, along with the
+     * include patterns, so the zip content is identified without inflating any entry
+     */
+    private String contentHash(List<ZipEntry> entries) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            includes.forEach(include -> digest.update((include + "\n").getBytes(StandardCharsets.UTF_8)));
+            for (ZipEntry entry : entries) {
+                digest.update((entry.getName() + "\t" + entry.getSize() + "\t" + entry.getCrc() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path target(ZipEntry entry) throws IOException {
+        Path file = outputDirectory.resolve(entry.getName()).normalize();
+        if (!file.startsWith(outputDirectory.normalize())) {
+            throw new IOException("Zip entry is outside of the output directory: " + entry.getName());
+        }
+        return file;
+    }
+
+    private void writeEntries(ZipFile zip, List<ZipEntry> entries) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            // largest first, so one big file does not start last and keep the run going on its own
+            entries.sort((entry1, entry2) -> Long.compare(entry2.getSize(), entry1.getSize()));
+            for (ZipEntry entry : entries) {
+                futures.add(executor.submit(() -> {
+                    writeEntry(zip, entry);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void writeEntry(ZipFile zip, ZipEntry entry) throws IOException {
+        Path file = target(entry);
+        Files.createDirectories(file.getParent());
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = zip.getInputStream(entry);
+             OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                     StandardOpenOption.WRITE)) {
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                out.write(buffer, 0, len);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package dev.ikm.maven;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parts of an RF2 release file name, FileType_ContentType_ContentSubType_CountryNamespace_VersionDate.txt, e.g.
+ * sct2_Description_Full-en_INT_20240101.txt or der2_cRefset_LanguageFull-en_INT_20240101.txt
+ *
+ * @param fileType sct2 for core components, der2 for derivatives
+ * @param contentType component type, or the refset pattern such as cRefset for a refset
+ * @param summary name of a refset, empty for core components
+ * @param releaseType Full, Snapshot or Delta
+ * @param languageCode language of the file, empty if it has none
+ * @param countryNamespace country or namespace of the release
+ * @param versionDate release date in yyyyMMdd format
+ */
+public record Rf2FileName(String fileType, String contentType, String summary, String releaseType,
+                          String languageCode, String countryNamespace, String versionDate) {
+    private static final Pattern RF2_FILE_NAME = Pattern.compile(
+            "^(sct2|der2|xsct2|xder2)_([A-Za-z0-9]+)_([A-Za-z0-9]*?)(Full|Snapshot|Delta)(?:-([A-Za-z-]+))?_([A-Za-z0-9-]+)_(\\d{8})\\.txt$");
+
+    /**
+     * @param fileName name of a release file
+     * @return the parts of the name, or null if it is not an RF2 file name
+     */
+    public static Rf2FileName parse(String fileName) {
+        Matcher matcher = RF2_FILE_NAME.matcher(fileName);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new Rf2FileName(matcher.group(1), matcher.group(2), matcher.group(3), matcher.group(4),
+                matcher.group(5) == null ? "" : matcher.group(5), matcher.group(6), matcher.group(7));
+    }
+
+    /**
+     * @return true if the file holds refset members
+     */
+    public boolean isRefset() {
+        return contentType.endsWith("Refset");
+    }
+
+    /**
+     * @return the refset name for a refset file, the component type otherwise, e.g. Language or Description
+     */
+    public String component() {
+        return isRefset() ? summary : contentType;
+    }
+}
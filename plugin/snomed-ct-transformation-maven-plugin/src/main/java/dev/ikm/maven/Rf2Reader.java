@@ -0,0 +1,568 @@
+package dev.ikm.maven;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Reads an RF2 file by memory-mapping it in chunks that are indexed in parallel on a fork-join pool.
+ * Chunks only ever end where the id column changes, so all rows of a component stay in the same chunk,
+ * and rows are handed to the consumer on the calling thread in file order with each component's rows
+ * sorted by effective time. Files that cannot be mapped, such as entries of a zip file system, are read
+ * sequentially into heap chunks with the same boundaries instead. A reader can also hand out only the latest
+ * version of each component, collapsing a Full file to a snapshot in the same pass.
+ * <p>
+ * A component is a run of adjacent rows with the same id, so the reader expects the rows of each component to be
+ * next to each other, as they are in files ordered by id. Rows of one id that are apart in the file are read as
+ * separate components, each sorted and collapsed on its own; pass such files through {@link Rf2Sorter} first.
+ */
+public class Rf2Reader {
+    private static final Logger LOG = LoggerFactory.getLogger(Rf2Reader.class.getSimpleName());
+    /**
+     * filter passing every component
+     */
+    public static final Predicate<Rf2Row> EVERY_ROW = row -> true;
+    private static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final int SCAN_WINDOW = 64 * 1024;
+    private static final byte NEW_LINE = '\n';
+    private static final byte TAB = '\t';
+    private static final int ID = 0;
+    private static final int EFFECTIVE_TIME = 1;
+    private static final int ACTIVE = 2;
+
+    private final Path path;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private boolean latestVersionOnly;
+    private Predicate<Rf2Row> filter = EVERY_ROW;
+    private long rowsToSkip;
+    private long rowCount;
+    private long filteredRowCount;
+    private long filteredComponentCount;
+    private long activeRowCount;
+    private long byteCount;
+
+    public Rf2Reader(File file) {
+        this(file.toPath());
+    }
+
+    public Rf2Reader(Path path) {
+        this(path, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public Rf2Reader(Path path, ForkJoinPool pool, int chunkSize) {
+        this.path = path;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @param latestVersionOnly hand out only the row with the latest effective time of each component, which needs the
+     * component's rows to be adjacent in the file
+     * @return this reader
+     */
+    public Rf2Reader latestVersionOnly(boolean latestVersionOnly) {
+        this.latestVersionOnly = latestVersionOnly;
+        return this;
+    }
+
+    /**
+     * Components are filtered as a whole, so the consumer either receives every row of a component or none of them,
+     * and a transformer grouping rows by id sees the same groups it would without the filter
+     * @param filter tested on the calling thread against the rows of each component; the component is handed out if
+     * any of its rows passes
+     * @return this reader
+     */
+    public Rf2Reader filter(Predicate<Rf2Row> filter) {
+        this.filter = Objects.requireNonNull(filter);
+        return this;
+    }
+
+    /**
+     * @param rows number of rows, counted after the filter, to skip before the consumer receives any
+     * @return this reader
+     */
+    public Rf2Reader skipRows(long rows) {
+        this.rowsToSkip = rows;
+        return this;
+    }
+
+    /**
+     * Indexes every row after the header line and positions a reusable {@link Rf2Row} cursor on each in turn
+     * @param consumer receives the cursor for each row, in file order
+     * @throws IOException if the file cannot be read
+     */
+    public void forEachRow(Consumer<Rf2Row> consumer) throws IOException {
+        if (path.getFileSystem() == FileSystems.getDefault()) {
+            forEachMappedRow(consumer);
+        } else {
+            forEachStreamedRow(consumer);
+        }
+        if (filteredComponentCount > 0) {
+            LOG.info("Filtered out " + filteredRowCount + " rows of " + filteredComponentCount + " components of " + path.getFileName());
+        }
+    }
+
+    /**
+     * Hands out the rows of each component together, as a reused view that is only valid during the call, like the
+     * cursor of {@link #forEachRow}; copy the rows with {@link Rf2Row#copy()} to keep them or hand them to another thread
+     * @param consumer receives every version of a component, sorted by effective time, in file order; a component's
+     * rows have to be adjacent in the file to arrive together
+     * @throws IOException if the file cannot be read
+     */
+    public void forEachComponent(Consumer<List<Rf2Row>> consumer) throws IOException {
+        ComponentRows component = new ComponentRows();
+        forEachRow(row -> {
+            if (!component.isEmpty() && !sameId(component.get(0), row)) {
+                consumer.accept(component);
+                component.reset();
+            }
+            component.include(row);
+        });
+        if (!component.isEmpty()) {
+            consumer.accept(component);
+        }
+    }
+
+    /**
+     * @return number of rows handed to the consumer so far
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return number of rows handed to the consumer so far whose active column is "1"
+     */
+    public long getActiveRowCount() {
+        return activeRowCount;
+    }
+
+    /**
+     * @return number of rows left out so far because the filter passed none of their component's rows
+     */
+    public long getFilteredRowCount() {
+        return filteredRowCount;
+    }
+
+    /**
+     * @return bytes of the rows handed to the consumer so far, including their line separators
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    private static boolean sameId(Rf2Row first, Rf2Row row) {
+        return row.contentEquals(ID, first.column(ID));
+    }
+
+    private void forEachMappedRow(Consumer<Rf2Row> consumer) throws IOException {
+        Rf2Row row = new Rf2Row();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int window = parserWindow();
+            Deque<ForkJoinTask<Chunk>> pending = new ArrayDeque<>();
+            long start = nextLineStart(channel, 0, size);
+            while (start < size || !pending.isEmpty()) {
+                while (start < size && pending.size() < window) {
+                    long end = nextGroupStart(channel, Math.min(size, start + chunkSize), size);
+                    pending.add(pool.submit(new ChunkParser(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), latestVersionOnly)));
+                    start = end;
+                }
+                accept(pending.removeFirst().join(), row, consumer);
+            }
+        }
+    }
+
+    /**
+     * Reads the file front to back into heap chunks, carrying the last, possibly incomplete, component of each
+     * chunk over to the next one
+     */
+    private void forEachStreamedRow(Consumer<Rf2Row> consumer) throws IOException {
+        Rf2Row row = new Rf2Row();
+        try (ReadableByteChannel channel = Files.newByteChannel(path, StandardOpenOption.READ)) {
+            int window = parserWindow();
+            Deque<ForkJoinTask<Chunk>> pending = new ArrayDeque<>();
+            byte[] carry = new byte[0];
+            boolean header = true;
+            boolean endOfFile = false;
+            while (!endOfFile || !pending.isEmpty()) {
+                while (!endOfFile && pending.size() < window) {
+                    ByteBuffer buffer = ByteBuffer.wrap(Arrays.copyOf(carry, Math.max(chunkSize, carry.length * 2)));
+                    buffer.position(carry.length);
+                    while (buffer.hasRemaining() && !endOfFile) {
+                        endOfFile = channel.read(buffer) < 0;
+                    }
+                    buffer.flip();
+                    int start = header ? lineEnd(buffer, 0) + 1 : 0;
+                    if (header && start > buffer.limit()) {
+                        if (endOfFile) {
+                            break;
+                        }
+                        carry = Arrays.copyOf(buffer.array(), buffer.limit());
+                        continue; // header line runs past the chunk
+                    }
+                    header = false;
+                    int end = endOfFile ? buffer.limit() : lastGroupStart(buffer, start);
+                    carry = Arrays.copyOfRange(buffer.array(), end, buffer.limit());
+                    if (end > start) {
+                        pending.add(pool.submit(new ChunkParser(buffer.limit(end).position(start).slice(), latestVersionOnly)));
+                    }
+                }
+                if (!pending.isEmpty()) {
+                    accept(pending.removeFirst().join(), row, consumer);
+                }
+            }
+        }
+    }
+
+    private int parserWindow() {
+        return Math.max(2, pool.getParallelism() * 2);
+    }
+
+    private void accept(Chunk chunk, Rf2Row row, Consumer<Rf2Row> consumer) {
+        if (filter == EVERY_ROW) {
+            accept(chunk, 0, chunk.rowCount(), row, consumer);
+            return;
+        }
+        // a component never spans chunks, so its rows are all in this one
+        int groupStart = 0;
+        while (groupStart < chunk.rowCount()) {
+            int groupEnd = groupStart + 1;
+            while (groupEnd < chunk.rowCount() && chunk.sameId(groupStart, groupEnd)) {
+                groupEnd++;
+            }
+            boolean passed = false;
+            for (int i = groupStart; i < groupEnd && !passed; i++) {
+                row.position(chunk.buffer(), chunk.bounds(), chunk.rowOffsets()[i]);
+                passed = filter.test(row);
+            }
+            if (passed) {
+                accept(chunk, groupStart, groupEnd, row, consumer);
+            } else {
+                filteredRowCount += groupEnd - groupStart;
+                filteredComponentCount++;
+            }
+            groupStart = groupEnd;
+        }
+    }
+
+    private void accept(Chunk chunk, int from, int to, Rf2Row row, Consumer<Rf2Row> consumer) {
+        for (int i = from; i < to; i++) {
+            row.position(chunk.buffer(), chunk.bounds(), chunk.rowOffsets()[i]);
+            if (rowsToSkip > 0) {
+                rowsToSkip--;
+            } else {
+                rowCount++;
+                if (row.columnCount() > ACTIVE && row.booleanValue(ACTIVE)) {
+                    activeRowCount++;
+                }
+                byteCount += row.byteLength();
+                consumer.accept(row);
+            }
+        }
+    }
+
+    /**
+     * @return offset of the new line ending the line that starts at position, or the limit if there is none
+     */
+    private static int lineEnd(ByteBuffer buffer, int position) {
+        int offset = position;
+        while (offset < buffer.limit() && buffer.get(offset) != NEW_LINE) {
+            offset++;
+        }
+        return offset;
+    }
+
+    /**
+     * Finds the start of the last component whose lines all lie in the buffer, so that everything before it can be
+     * parsed while the rest waits for more data
+     * @return offset of that component's first line, or start if the buffer holds no complete component
+     */
+    private static int lastGroupStart(ByteBuffer buffer, int start) {
+        int lastLineEnd = buffer.limit() - 1;
+        while (lastLineEnd >= start && buffer.get(lastLineEnd) != NEW_LINE) {
+            lastLineEnd--;
+        }
+        if (lastLineEnd < start) {
+            return start;
+        }
+        // the line after the last new line may continue the last component, so only ids before it are compared
+        int groupStart = lastLineEnd + 1;
+        int groupIdEnd = idEnd(buffer, groupStart);
+        while (groupStart > start) {
+            int previousStart = groupStart - 1;
+            while (previousStart > start && buffer.get(previousStart - 1) != NEW_LINE) {
+                previousStart--;
+            }
+            int previousIdEnd = idEnd(buffer, previousStart);
+            if (groupIdEnd < buffer.limit() && !sameBytes(buffer, previousStart, previousIdEnd, groupStart, groupIdEnd)) {
+                return groupStart;
+            }
+            groupStart = previousStart;
+            groupIdEnd = previousIdEnd;
+        }
+        return start;
+    }
+
+    private static int idEnd(ByteBuffer buffer, int lineStart) {
+        int offset = lineStart;
+        while (offset < buffer.limit() && buffer.get(offset) != TAB && buffer.get(offset) != NEW_LINE) {
+            offset++;
+        }
+        return offset;
+    }
+
+    /**
+     * @return offset of the first line that starts after position
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        long offset = position;
+        while (offset < size) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(SCAN_WINDOW, size - offset));
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (buffer.get(i) == NEW_LINE) {
+                    return offset + i + 1;
+                }
+            }
+            offset += buffer.limit();
+        }
+        return size;
+    }
+
+    /**
+     * Finds the first line after position whose id differs from the id of the complete line before it,
+     * so that a chunk boundary never separates two rows of the same component
+     * @return offset of that line, or the file size if there is none
+     */
+    private static long nextGroupStart(FileChannel channel, long position, long size) throws IOException {
+        long lineStart = nextLineStart(channel, position, size);
+        for (long window = SCAN_WINDOW; lineStart < size; window *= 2) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, lineStart, Math.min(window, size - lineStart));
+            int previousStart = -1;
+            int previousIdEnd = -1;
+            int start = 0;
+            while (start < buffer.limit()) {
+                int idEnd = start;
+                while (idEnd < buffer.limit() && buffer.get(idEnd) != TAB && buffer.get(idEnd) != NEW_LINE) {
+                    idEnd++;
+                }
+                int end = idEnd;
+                while (end < buffer.limit() && buffer.get(end) != NEW_LINE) {
+                    end++;
+                }
+                if (end == buffer.limit() && lineStart + end < size) {
+                    break; // line runs past the window
+                }
+                if (previousStart >= 0 && !sameBytes(buffer, previousStart, previousIdEnd, start, idEnd)) {
+                    return lineStart + start;
+                }
+                previousStart = start;
+                previousIdEnd = idEnd;
+                start = end + 1;
+            }
+            if (lineStart + start >= size) {
+                return size;
+            }
+        }
+        return size;
+    }
+
+    private static boolean sameBytes(ByteBuffer buffer, int start1, int end1, int start2, int end2) {
+        if (end1 - start1 != end2 - start2) {
+            return false;
+        }
+        for (int i = 0; i < end1 - start1; i++) {
+            if (buffer.get(start1 + i) != buffer.get(start2 + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rows of one mapped chunk, described by the column boundaries of each row and the order in which
+     * the rows are handed out
+     */
+    private record Chunk(ByteBuffer buffer, int[] bounds, int[] rowOffsets, int rowCount) {
+        /**
+         * @return true if the rows handed out at the two indexes have the same id
+         */
+        boolean sameId(int row, int otherRow) {
+            int rowOffset = rowOffsets[row];
+            int otherRowOffset = rowOffsets[otherRow];
+            return sameBytes(buffer, bounds[rowOffset + 1], bounds[rowOffset + 2 + ID],
+                    bounds[otherRowOffset + 1], bounds[otherRowOffset + 2 + ID]);
+        }
+    }
+
+    /**
+     * Read-only list of cursors over the rows of one component. A component never spans chunks, so its cursors keep
+     * pointing into the chunk it was parsed from until the list is cleared for the next component.
+     */
+    private static final class ComponentRows extends AbstractList<Rf2Row> implements RandomAccess {
+        private Rf2Row[] rows = new Rf2Row[4];
+        private int size;
+
+        void include(Rf2Row row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            if (rows[size] == null) {
+                rows[size] = new Rf2Row();
+            }
+            rows[size++].position(row);
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        @Override
+        public Rf2Row get(int index) {
+            Objects.checkIndex(index, size);
+            return rows[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Indexes the rows and column boundaries of one chunk
+     */
+    private static class ChunkParser extends RecursiveTask<Chunk> {
+        private final ByteBuffer buffer;
+        private final boolean latestVersionOnly;
+
+        ChunkParser(ByteBuffer buffer, boolean latestVersionOnly) {
+            this.buffer = buffer;
+            this.latestVersionOnly = latestVersionOnly;
+        }
+
+        @Override
+        protected Chunk compute() {
+            int limit = buffer.limit();
+            int[] bounds = new int[Math.max(64, limit / 8)];
+            int[] rowOffsets = new int[Math.max(16, limit / 64)];
+            int[] effectiveTimes = new int[rowOffsets.length];
+            int rowCount = 0;
+            int used = 0;
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int lineEnd = lineStart;
+                while (lineEnd < limit && buffer.get(lineEnd) != NEW_LINE) {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                if (contentEnd > lineStart) {
+                    if (rowCount == rowOffsets.length) {
+                        rowOffsets = Arrays.copyOf(rowOffsets, rowCount * 2);
+                        effectiveTimes = Arrays.copyOf(effectiveTimes, rowCount * 2);
+                    }
+                    if (used + (contentEnd - lineStart) + 3 > bounds.length) {
+                        bounds = Arrays.copyOf(bounds, Math.max(bounds.length * 2, used + contentEnd - lineStart + 3));
+                    }
+                    int rowOffset = used;
+                    bounds[used + 1] = lineStart;
+                    int columns = 0;
+                    for (int i = lineStart; i < contentEnd; i++) {
+                        if (buffer.get(i) == TAB) {
+                            bounds[rowOffset + 2 + columns++] = i;
+                        }
+                    }
+                    bounds[rowOffset + 2 + columns++] = contentEnd;
+                    bounds[rowOffset] = columns;
+                    used = rowOffset + 2 + columns;
+                    rowOffsets[rowCount] = rowOffset;
+                    effectiveTimes[rowCount] = columns > EFFECTIVE_TIME ? effectiveTime(bounds, rowOffset) : 0;
+                    rowCount++;
+                }
+                lineStart = lineEnd + 1;
+            }
+            sortGroupsByEffectiveTime(bounds, rowOffsets, effectiveTimes, rowCount);
+            if (latestVersionOnly) {
+                rowCount = keepLatestOfGroups(bounds, rowOffsets, rowCount);
+            }
+            return new Chunk(buffer, bounds, rowOffsets, rowCount);
+        }
+
+        private int effectiveTime(int[] bounds, int rowOffset) {
+            int value = 0;
+            for (int i = bounds[rowOffset + 2 + ID] + 1; i < bounds[rowOffset + 2 + EFFECTIVE_TIME]; i++) {
+                value = value * 10 + (buffer.get(i) - '0');
+            }
+            return value;
+        }
+
+        private boolean sameId(int[] bounds, int rowOffset, int otherRowOffset) {
+            int start = bounds[rowOffset + 1];
+            int otherStart = bounds[otherRowOffset + 1];
+            return sameBytes(buffer, start, bounds[rowOffset + 2 + ID], otherStart, bounds[otherRowOffset + 2 + ID]);
+        }
+
+        /**
+         * Drops every row but the last of each component, which after sorting is the one with the latest effective time
+         * @return number of rows left
+         */
+        private int keepLatestOfGroups(int[] bounds, int[] rowOffsets, int rowCount) {
+            int kept = 0;
+            for (int i = 0; i < rowCount; i++) {
+                if (i + 1 == rowCount || !sameId(bounds, rowOffsets[i], rowOffsets[i + 1])) {
+                    rowOffsets[kept++] = rowOffsets[i];
+                }
+            }
+            return kept;
+        }
+
+        /**
+         * Puts the rows of each component in effective time order, leaving the order of the components alone. Only
+         * adjacent rows with the same id are a component; since chunks end only where the id changes, no such run
+         * spans two chunks, so sorting within the chunk sorts the whole component.
+         */
+        private void sortGroupsByEffectiveTime(int[] bounds, int[] rowOffsets, int[] effectiveTimes, int rowCount) {
+            int groupStart = 0;
+            for (int i = 1; i <= rowCount; i++) {
+                if (i == rowCount || !sameId(bounds, rowOffsets[i], rowOffsets[groupStart])) {
+                    for (int j = groupStart + 1; j < i; j++) {
+                        int rowOffset = rowOffsets[j];
+                        int effectiveTime = effectiveTimes[j];
+                        int k = j - 1;
+                        while (k >= groupStart && effectiveTimes[k] > effectiveTime) {
+                            rowOffsets[k + 1] = rowOffsets[k];
+                            effectiveTimes[k + 1] = effectiveTimes[k];
+                            k--;
+                        }
+                        rowOffsets[k + 1] = rowOffset;
+                        effectiveTimes[k + 1] = effectiveTime;
+                    }
+                    groupStart = i;
+                }
+            }
+        }
+    }
+}
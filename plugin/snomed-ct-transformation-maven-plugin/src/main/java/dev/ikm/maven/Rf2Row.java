@@ -0,0 +1,295 @@
+package dev.ikm.maven;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reusable cursor over one row of an RF2 file. Columns are read straight from the underlying bytes,
+ * so reading ids, dates and flags does not allocate. The cursor is repositioned for every row and must not be
+ * kept by the consumer; copy what is needed with {@link #string(int)}, or the whole row with {@link #copy()}.
+ */
+public final class Rf2Row {
+    private ColumnView[] views = new ColumnView[16];
+    private ByteBuffer buffer;
+    private int[] bounds;
+    private int offset;
+    private byte[] scratch = new byte[0];
+
+    Rf2Row() {
+    }
+
+    /**
+     * Points the cursor at a row. bounds[offset] holds the column count, followed by the start of the first
+     * column and the end offset of every column.
+     */
+    void position(ByteBuffer buffer, int[] bounds, int offset) {
+        this.buffer = buffer;
+        this.bounds = bounds;
+        this.offset = offset;
+    }
+
+    /**
+     * Points the cursor at the row another cursor is on
+     */
+    void position(Rf2Row row) {
+        position(row.buffer, row.bounds, row.offset);
+    }
+
+    public int columnCount() {
+        return bounds[offset];
+    }
+
+    private int start(int column) {
+        if (column < 0 || column >= columnCount()) {
+            throw new IndexOutOfBoundsException("Column " + column + " of " + columnCount());
+        }
+        return column == 0 ? bounds[offset + 1] : bounds[offset + 1 + column] + 1;
+    }
+
+    private int end(int column) {
+        return bounds[offset + 2 + column];
+    }
+
+    /**
+     * @return length of a column in bytes
+     */
+    public int length(int column) {
+        return end(column) - start(column);
+    }
+
+    /**
+     * @return length of the row in bytes, including its line separator as it is in the file, so a CRLF row counts two
+     * bytes more than its columns and the last row of a file without a final line separator none
+     */
+    public int byteLength() {
+        return contentLength() + separatorLength();
+    }
+
+    /**
+     * @return length of the row in bytes without its line separator
+     */
+    int contentLength() {
+        return end(columnCount() - 1) - start(0);
+    }
+
+    /**
+     * @return length of the line separator after the row: 2 for CRLF, 1 for LF, 0 at the end of the buffer
+     */
+    private int separatorLength() {
+        int end = end(columnCount() - 1);
+        int length = 0;
+        if (end < buffer.limit() && buffer.get(end) == '\r') {
+            length++;
+        }
+        if (end + length < buffer.limit() && buffer.get(end + length) == '\n') {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * View of a column that stays valid until the cursor moves. Only meant for ASCII columns such as ids and codes.
+     * @param column column index
+     * @return character view over the column bytes
+     */
+    public CharSequence column(int column) {
+        start(column);
+        if (column >= views.length) {
+            // refset files may have any number of additional columns
+            views = Arrays.copyOf(views, Math.max(columnCount(), views.length * 2));
+        }
+        if (views[column] == null) {
+            views[column] = new ColumnView(column);
+        }
+        return views[column];
+    }
+
+    /**
+     * @param column column index
+     * @return UTF-8 decoded copy of the column
+     */
+    public String string(int column) {
+        int start = start(column);
+        int length = end(column) - start;
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a column of decimal digits, such as an SCTID
+     * @param column column index
+     * @return value of the column
+     */
+    public long longValue(int column) {
+        int start = start(column);
+        int end = end(column);
+        if (start == end || end - start > 18) {
+            throw new NumberFormatException("Not an SCTID: " + string(column));
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not an SCTID: " + string(column));
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Parses a column of decimal digits, such as an effectiveTime in yyyyMMdd format
+     * @param column column index
+     * @return value of the column
+     */
+    public int intValue(int column) {
+        long value = longValue(column);
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Not an int: " + string(column));
+        }
+        return (int) value;
+    }
+
+    /**
+     * @param column column index
+     * @return true if the column is a decimal number written the way Long.toString writes it, such as an SCTID
+     */
+    public boolean isNumber(int column) {
+        int start = start(column);
+        int end = end(column);
+        if (start == end || end - start > 18 || (buffer.get(start) == '0' && end - start > 1)) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the bytes of a column
+     * @param column column index
+     * @param target array to copy to, which must have room for {@link #length(int)} bytes
+     * @param offset position in the target
+     */
+    public void copyBytes(int column, byte[] target, int offset) {
+        int start = start(column);
+        buffer.get(start, target, offset, end(column) - start);
+    }
+
+    /**
+     * Copies the bytes of the whole row, without its line separator
+     * @param target buffer to copy to at its position, which must have room for the row
+     */
+    public void copyTo(ByteBuffer target) {
+        int start = start(0);
+        int length = contentLength();
+        target.put(target.position(), buffer, start, length);
+        target.position(target.position() + length);
+    }
+
+    /**
+     * @param column column index
+     * @return true if the column is "1", as in the RF2 active column
+     */
+    public boolean booleanValue(int column) {
+        int start = start(column);
+        return end(column) - start == 1 && buffer.get(start) == '1';
+    }
+
+    /**
+     * @param column column index
+     * @return hash of the column bytes, equal for equal column values
+     */
+    public int columnHash(int column) {
+        int start = start(column);
+        int end = end(column);
+        int hash = 0x811C9DC5;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ buffer.get(i)) * 0x01000193;
+        }
+        return hash;
+    }
+
+    /**
+     * @return true if the column holds exactly the given ASCII characters
+     */
+    public boolean contentEquals(int column, CharSequence value) {
+        int start = start(column);
+        if (value == null || end(column) - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (buffer.get(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return a row over its own copy of this row's bytes, which stays valid after the cursor moves
+     */
+    public Rf2Row copy() {
+        int columnCount = columnCount();
+        int base = bounds[offset + 1];
+        // the line separator is copied as well, so the copy has the same byte length
+        byte[] bytes = new byte[byteLength()];
+        buffer.get(base, bytes);
+        int[] copyBounds = new int[columnCount + 2];
+        copyBounds[0] = columnCount;
+        for (int i = 1; i < copyBounds.length; i++) {
+            copyBounds[i] = bounds[offset + i] - base;
+        }
+        Rf2Row copy = new Rf2Row();
+        copy.position(ByteBuffer.wrap(bytes), copyBounds, 0);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < columnCount(); i++) {
+            row.append(i == 0 ? "" : "\t").append(string(i));
+        }
+        return row.toString();
+    }
+
+    private final class ColumnView implements CharSequence {
+        private final int column;
+
+        ColumnView(int column) {
+            this.column = column;
+        }
+
+        @Override
+        public int length() {
+            return Rf2Row.this.length(column);
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(start(column) + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return string(column);
+        }
+    }
+}
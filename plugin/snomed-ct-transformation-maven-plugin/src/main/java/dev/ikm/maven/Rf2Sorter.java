@@ -0,0 +1,416 @@
+package dev.ikm.maven;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Sorts RF2 files by component id and effective time, so the rows of a component are adjacent whatever order the
+ * file was written in. Rows are collected in an off-heap buffer no larger than the memory cap, sorted and spilled to
+ * a run file whenever the buffer is full, and the runs are merged into one sorted file. Ids made of digits are
+ * compared as numbers and other ids, such as refset member UUIDs, byte by byte; rows with the same id and effective
+ * time keep their file order. A file that is already in order is read as it is. A sorter can be shared by files
+ * transformed in parallel: each file is checked and sorted only once however many transformers read it, and files
+ * that need sorting take turns with the one buffer, so the memory cap holds for the whole run.
+ */
+public class Rf2Sorter {
+    private static final Logger LOG = LoggerFactory.getLogger(Rf2Sorter.class.getSimpleName());
+    private static final int ID = 0;
+    private static final int EFFECTIVE_TIME = 1;
+    private static final byte NEW_LINE = '\n';
+    private static final byte TAB = '\t';
+    private static final int IO_BUFFER_SIZE = 1024 * 1024;
+
+    private final Path sortDirectory;
+    private final int bufferBytes;
+    private final Map<Path, CompletableFuture<Path>> sortedFiles = new ConcurrentHashMap<>();
+    private final ReentrantLock bufferLock = new ReentrantLock();
+    private ByteBuffer buffer;
+
+    /**
+     * @param sortDirectory directory run files and sorted files are written to
+     * @param memoryBytes size of the off-heap buffer rows are sorted in, at most 2 GB
+     */
+    public Rf2Sorter(Path sortDirectory, long memoryBytes) {
+        this.sortDirectory = sortDirectory;
+        this.bufferBytes = (int) Math.min(Integer.MAX_VALUE, memoryBytes);
+    }
+
+    /**
+     * @param rf2File RF2 file, on disk or inside a zip file system
+     * @return the file itself if its rows are in order, otherwise a sorted copy in the sort directory; later calls for
+     * the same file, from any thread, return the same answer without reading the file again
+     * @throws IOException if the file cannot be read or the sorted copy cannot be written
+     */
+    public Path sorted(Path rf2File) throws IOException {
+        CompletableFuture<Path> sorting = new CompletableFuture<>();
+        CompletableFuture<Path> earlier = sortedFiles.putIfAbsent(rf2File, sorting);
+        if (earlier != null) {
+            try {
+                return earlier.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+            }
+        }
+        try {
+            Path sorted = isSorted(rf2File) ? rf2File : sort(rf2File);
+            sorting.complete(sorted);
+            return sorted;
+        } catch (IOException | RuntimeException e) {
+            // a later call tries again
+            sortedFiles.remove(rf2File, sorting);
+            sorting.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Path sort(Path rf2File) throws IOException {
+        bufferLock.lock();
+        try {
+            if (buffer == null) {
+                buffer = ByteBuffer.allocateDirect(bufferBytes);
+            }
+            buffer.clear();
+            return sort(rf2File, buffer);
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    private Path sort(Path rf2File, ByteBuffer rows) throws IOException {
+        long start = System.currentTimeMillis();
+        Files.createDirectories(sortDirectory);
+        String fileName = rf2File.getFileName().toString();
+        Path sortedFile = sortDirectory.resolve(fileName);
+        Path temporaryFile = sortedFile.resolveSibling(fileName + ".tmp");
+        byte[] header = header(rf2File);
+
+        RunBuilder runs = new RunBuilder(fileName, rows);
+        new Rf2Reader(rf2File).forEachRow(runs::add);
+        if (runs.runFiles.isEmpty()) {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporaryFile), IO_BUFFER_SIZE)) {
+                out.write(header);
+                runs.writeSorted(out);
+            }
+        } else {
+            runs.spill();
+            merge(header, runs.runFiles, temporaryFile);
+        }
+        Files.move(temporaryFile, sortedFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOG.info("Sorted " + runs.totalRows + " rows of " + fileName + " in " + Math.max(1, runs.runFiles.size())
+                + " runs in " + (System.currentTimeMillis() - start) + " ms");
+        return sortedFile;
+    }
+
+    /**
+     * @return true if no row has a smaller id than the row before it; the reader puts the rows of each component in
+     * effective time order itself
+     */
+    private static boolean isSorted(Path rf2File) throws IOException {
+        OrderCheck orderCheck = new OrderCheck();
+        new Rf2Reader(rf2File).forEachRow(orderCheck);
+        return orderCheck.sorted;
+    }
+
+    private static byte[] header(Path rf2File) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(rf2File, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            return header == null ? new byte[0] : (header + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Compares two ids, as numbers if both are made of digits and byte by byte otherwise
+     */
+    static int compareIds(ByteBuffer buffer, int start, int length, ByteBuffer otherBuffer, int otherStart, int otherLength) {
+        if (length != otherLength && isDigits(buffer, start, length) && isDigits(otherBuffer, otherStart, otherLength)) {
+            return Integer.compare(length, otherLength);
+        }
+        for (int i = 0; i < Math.min(length, otherLength); i++) {
+            int difference = Byte.toUnsignedInt(buffer.get(start + i)) - Byte.toUnsignedInt(otherBuffer.get(otherStart + i));
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return Integer.compare(length, otherLength);
+    }
+
+    private static boolean isDigits(ByteBuffer buffer, int start, int length) {
+        if (length == 0) {
+            return false;
+        }
+        for (int i = start; i < start + length; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Merges the sorted runs, taking the row of the earlier run when two rows have the same key
+     */
+    private static void merge(byte[] header, List<Path> runFiles, Path target) throws IOException {
+        PriorityQueue<RunCursor> cursors = new PriorityQueue<>();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target), IO_BUFFER_SIZE)) {
+            out.write(header);
+            for (int run = 0; run < runFiles.size(); run++) {
+                RunCursor cursor = new RunCursor(run, Files.newInputStream(runFiles.get(run)));
+                if (cursor.next()) {
+                    cursors.add(cursor);
+                } else {
+                    cursor.close();
+                }
+            }
+            while (!cursors.isEmpty()) {
+                RunCursor cursor = cursors.poll();
+                out.write(cursor.line.array(), 0, cursor.lineLength);
+                out.write(NEW_LINE);
+                if (cursor.next()) {
+                    cursors.add(cursor);
+                } else {
+                    cursor.close();
+                }
+            }
+        } finally {
+            for (RunCursor cursor : cursors) {
+                cursor.close();
+            }
+            for (Path runFile : runFiles) {
+                Files.deleteIfExists(runFile);
+            }
+        }
+    }
+
+    /**
+     * Collects rows in the off-heap buffer and spills them as a sorted run whenever the buffer is full
+     */
+    private final class RunBuilder {
+        private final String fileName;
+        private final List<Path> runFiles = new ArrayList<>();
+        private final ByteBuffer rows;
+        private int[] rowStarts = new int[1024];
+        private int[] rowLengths = new int[1024];
+        private int[] idLengths = new int[1024];
+        private int[] effectiveTimes = new int[1024];
+        private int rowCount;
+        private long totalRows;
+
+        RunBuilder(String fileName, ByteBuffer rows) {
+            this.fileName = fileName;
+            this.rows = rows;
+        }
+
+        void add(Rf2Row row) {
+            int length = row.contentLength();
+            if (length > rows.capacity()) {
+                throw new RuntimeException("A row of " + fileName + " is larger than the sort buffer of " + bufferBytes + " bytes");
+            }
+            if (length > rows.remaining()) {
+                spill();
+            }
+            if (rowCount == rowStarts.length) {
+                rowStarts = Arrays.copyOf(rowStarts, rowCount * 2);
+                rowLengths = Arrays.copyOf(rowLengths, rowCount * 2);
+                idLengths = Arrays.copyOf(idLengths, rowCount * 2);
+                effectiveTimes = Arrays.copyOf(effectiveTimes, rowCount * 2);
+            }
+            rowStarts[rowCount] = rows.position();
+            rowLengths[rowCount] = length;
+            idLengths[rowCount] = row.length(ID);
+            effectiveTimes[rowCount] = row.intValue(EFFECTIVE_TIME);
+            row.copyTo(rows);
+            rowCount++;
+            totalRows++;
+        }
+
+        /**
+         * writes the buffered rows to a new run file and empties the buffer
+         */
+        void spill() {
+            Path runFile = sortDirectory.resolve(fileName + ".run" + runFiles.size());
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(runFile), IO_BUFFER_SIZE)) {
+                writeSorted(out);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            runFiles.add(runFile);
+        }
+
+        void writeSorted(OutputStream out) throws IOException {
+            int[] order = new int[rowCount];
+            for (int i = 0; i < rowCount; i++) {
+                order[i] = i;
+            }
+            mergeSort(order, new int[rowCount], 0, rowCount);
+            byte[] line = new byte[256];
+            for (int index : order) {
+                if (line.length < rowLengths[index]) {
+                    line = new byte[Math.max(rowLengths[index], line.length * 2)];
+                }
+                rows.get(rowStarts[index], line, 0, rowLengths[index]);
+                out.write(line, 0, rowLengths[index]);
+                out.write(NEW_LINE);
+            }
+            rows.clear();
+            rowCount = 0;
+        }
+
+        private int compareRows(int row, int other) {
+            int compared = compareIds(rows, rowStarts[row], idLengths[row], rows, rowStarts[other], idLengths[other]);
+            return compared != 0 ? compared : Integer.compare(effectiveTimes[row], effectiveTimes[other]);
+        }
+
+        /**
+         * Stable merge sort of row indexes, so rows with equal keys keep their file order
+         */
+        private void mergeSort(int[] order, int[] scratch, int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            mergeSort(order, scratch, from, middle);
+            mergeSort(order, scratch, middle, to);
+            if (compareRows(order[middle - 1], order[middle]) <= 0) {
+                return;
+            }
+            System.arraycopy(order, from, scratch, from, to - from);
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++) {
+                if (right >= to || (left < middle && compareRows(scratch[left], scratch[right]) <= 0)) {
+                    order[i] = scratch[left++];
+                } else {
+                    order[i] = scratch[right++];
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares the id of every row with the id of the row before it
+     */
+    private static final class OrderCheck implements Consumer<Rf2Row> {
+        private ByteBuffer previousId = ByteBuffer.allocate(64);
+        private ByteBuffer id = ByteBuffer.allocate(64);
+        private int previousLength = -1;
+        private boolean sorted = true;
+
+        @Override
+        public void accept(Rf2Row row) {
+            if (!sorted) {
+                return;
+            }
+            int length = row.length(ID);
+            if (id.capacity() < length) {
+                id = ByteBuffer.allocate(length * 2);
+            }
+            row.copyBytes(ID, id.array(), 0);
+            if (previousLength >= 0 && compareIds(previousId, 0, previousLength, id, 0, length) > 0) {
+                sorted = false;
+            }
+            ByteBuffer swap = previousId;
+            previousId = id;
+            id = swap;
+            previousLength = length;
+        }
+    }
+
+    /**
+     * Reads one run file line by line
+     */
+    private static final class RunCursor implements Comparable<RunCursor> {
+        private final int run;
+        private final InputStream in;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int position;
+        private int limit;
+        private ByteBuffer line = ByteBuffer.allocate(256);
+        private int lineLength;
+        private int idLength;
+        private int effectiveTime;
+
+        RunCursor(int run, InputStream in) {
+            this.run = run;
+            this.in = in;
+        }
+
+        /**
+         * @return false at the end of the run
+         */
+        boolean next() throws IOException {
+            lineLength = 0;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return lineLength > 0 && parseKey();
+                    }
+                }
+                byte b = buffer[position++];
+                if (b == NEW_LINE) {
+                    return parseKey();
+                }
+                if (lineLength == line.capacity()) {
+                    line = ByteBuffer.wrap(Arrays.copyOf(line.array(), lineLength * 2));
+                }
+                line.array()[lineLength++] = b;
+            }
+        }
+
+        private boolean parseKey() {
+            byte[] bytes = line.array();
+            idLength = 0;
+            while (idLength < lineLength && bytes[idLength] != TAB) {
+                idLength++;
+            }
+            effectiveTime = 0;
+            for (int i = idLength + 1; i < lineLength && bytes[i] != TAB; i++) {
+                effectiveTime = effectiveTime * 10 + (bytes[i] - '0');
+            }
+            return true;
+        }
+
+        /**
+         * orders cursors by the key of their current line, the earlier run first when keys are equal
+         */
+        @Override
+        public int compareTo(RunCursor other) {
+            int compared = compareIds(line, 0, idLength, other.line, 0, other.idLength);
+            if (compared == 0) {
+                compared = Integer.compare(effectiveTime, other.effectiveTime);
+            }
+            return compared != 0 ? compared : Integer.compare(run, other.run);
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+    }
+}
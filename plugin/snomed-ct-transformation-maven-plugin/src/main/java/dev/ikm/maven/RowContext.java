@@ -0,0 +1,207 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.common.id.PublicIds;
+import dev.ikm.tinkar.common.util.uuid.UuidT5Generator;
+import dev.ikm.tinkar.composer.Session;
+import dev.ikm.tinkar.composer.assembler.ConceptAssembler;
+import dev.ikm.tinkar.composer.assembler.SemanticAssembler;
+import dev.ikm.tinkar.composer.template.Identifier;
+import dev.ikm.tinkar.terms.EntityProxy;
+import dev.ikm.tinkar.terms.State;
+import dev.ikm.tinkar.terms.TinkarTerm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * What a {@link RowTransformer} composes with while one file is transformed: the namespace of the run, the sessions
+ * of the file and, for bulk loads, the chronology writer. The versions of a component are best collected with
+ * {@link #concept} or {@link #semantic} and written together, so they are composed into the sessions or bulk written
+ * as one chronology depending on the run. A context belongs to a single file and is not thread safe.
+ */
+public final class RowContext {
+    private final UUID namespace;
+    private final SessionPool sessions;
+    private final ChronologyWriter chronologyWriter;
+
+    RowContext(UUID namespace, SessionPool sessions) {
+        this(namespace, sessions, null);
+    }
+
+    RowContext(UUID namespace, SessionPool sessions, ChronologyWriter chronologyWriter) {
+        this.namespace = namespace;
+        this.sessions = sessions;
+        this.chronologyWriter = chronologyWriter;
+    }
+
+    public UUID getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * @param status status of the version
+     * @param time epoch time of the version
+     * @param moduleId SCTID of the version's module
+     * @return the session for this STAMP
+     */
+    public Session session(State status, long time, long moduleId) {
+        return sessions.open(status, time, moduleId);
+    }
+
+    /**
+     * @param concept concept the versions belong to
+     * @return versions of the concept, written by {@link ConceptVersions#write()}
+     */
+    public ConceptVersions concept(EntityProxy.Concept concept) {
+        return new ConceptVersions(concept);
+    }
+
+    /**
+     * @param semantic semantic the versions belong to
+     * @param pattern pattern of the semantic
+     * @param reference component the semantic refers to
+     * @return versions of the semantic, written by {@link SemanticVersions#write()}
+     */
+    public SemanticVersions semantic(EntityProxy.Semantic semantic, EntityProxy.Pattern pattern, EntityProxy reference) {
+        return new SemanticVersions(semantic, pattern, reference);
+    }
+
+    private record Stamp(State status, long time, long moduleId) {
+    }
+
+    private int[] stampNids(List<Stamp> stamps) {
+        int[] stampNids = new int[stamps.size()];
+        for (int i = 0; i < stampNids.length; i++) {
+            Stamp stamp = stamps.get(i);
+            stampNids[i] = chronologyWriter.stampNid(stamp.status(), stamp.time(), stamp.moduleId());
+        }
+        return stampNids;
+    }
+
+    /**
+     * Versions of one concept, with the identifiers attached to its first version
+     */
+    public final class ConceptVersions {
+        private final EntityProxy.Concept concept;
+        private final List<Stamp> stamps = new ArrayList<>();
+        private final List<EntityProxy.Concept> identifierSources = new ArrayList<>();
+        private final List<String> identifiers = new ArrayList<>();
+
+        private ConceptVersions(EntityProxy.Concept concept) {
+            this.concept = concept;
+        }
+
+        public ConceptVersions version(State status, long time, long moduleId) {
+            stamps.add(new Stamp(status, time, moduleId));
+            return this;
+        }
+
+        /**
+         * @param source identifier scheme, such as {@link TinkarTerm#SCTID}
+         * @param identifier the concept's identifier in the scheme
+         */
+        public ConceptVersions identifier(EntityProxy.Concept source, String identifier) {
+            identifierSources.add(source);
+            identifiers.add(identifier);
+            return this;
+        }
+
+        public void write() {
+            if (stamps.isEmpty()) {
+                return;
+            }
+            if (chronologyWriter == null) {
+                for (int i = 0; i < stamps.size(); i++) {
+                    Stamp stamp = stamps.get(i);
+                    boolean first = i == 0;
+                    session(stamp.status(), stamp.time(), stamp.moduleId()).compose((ConceptAssembler conceptAssembler) -> {
+                        conceptAssembler.concept(concept);
+                        for (int j = 0; first && j < identifiers.size(); j++) {
+                            EntityProxy.Concept source = identifierSources.get(j);
+                            String value = identifiers.get(j);
+                            EntityProxy.Semantic identifierSemantic = identifierSemantic(concept, source, value);
+                            conceptAssembler.attach((Identifier identifier) -> identifier
+                                    .semantic(identifierSemantic)
+                                    .source(source)
+                                    .identifier(value));
+                        }
+                    });
+                }
+                return;
+            }
+            int[] stampNids = stampNids(stamps);
+            chronologyWriter.writeConcept(concept, stampNids);
+            for (int j = 0; j < identifiers.size(); j++) {
+                EntityProxy.Concept source = identifierSources.get(j);
+                String value = identifiers.get(j);
+                chronologyWriter.writeSemantic(identifierSemantic(concept, source, value), TinkarTerm.IDENTIFIER_PATTERN, concept,
+                        new int[]{stampNids[0]}, List.<Object[]>of(new Object[]{source, value}));
+            }
+        }
+    }
+
+    /**
+     * The identifier semantic of a concept's identifier, derived from the concept, scheme and identifier so that it
+     * is the same whether the concept is composed or bulk written, and across runs. The Composer's identifier
+     * template gives each identifier a random UUID, so the public ids of identifier semantics differ from those of
+     * earlier conversions.
+     *
+     * @param concept concept the identifier belongs to
+     * @param source identifier scheme
+     * @param identifier the concept's identifier in the scheme
+     */
+    static EntityProxy.Semantic identifierSemantic(EntityProxy.Concept concept, EntityProxy.Concept source, String identifier) {
+        return EntityProxy.Semantic.make(PublicIds.of(UuidT5Generator.get(TinkarTerm.IDENTIFIER_PATTERN.asUuidArray()[0],
+                concept.asUuidArray()[0] + " " + source.asUuidArray()[0] + " " + identifier)));
+    }
+
+    /**
+     * Versions of one semantic
+     */
+    public final class SemanticVersions {
+        private final EntityProxy.Semantic semantic;
+        private final EntityProxy.Pattern pattern;
+        private final EntityProxy reference;
+        private final List<Stamp> stamps = new ArrayList<>();
+        private final List<Object[]> fieldValues = new ArrayList<>();
+
+        private SemanticVersions(EntityProxy.Semantic semantic, EntityProxy.Pattern pattern, EntityProxy reference) {
+            this.semantic = semantic;
+            this.pattern = pattern;
+            this.reference = reference;
+        }
+
+        /**
+         * @param fieldValues field values of the version, in the order of the pattern's fields
+         */
+        public SemanticVersions version(State status, long time, long moduleId, Object... fieldValues) {
+            stamps.add(new Stamp(status, time, moduleId));
+            this.fieldValues.add(fieldValues);
+            return this;
+        }
+
+        public void write() {
+            if (stamps.isEmpty()) {
+                return;
+            }
+            if (chronologyWriter != null) {
+                chronologyWriter.writeSemantic(semantic, pattern, reference, stampNids(stamps), fieldValues);
+                return;
+            }
+            for (int i = 0; i < stamps.size(); i++) {
+                Stamp stamp = stamps.get(i);
+                Object[] values = fieldValues.get(i);
+                session(stamp.status(), stamp.time(), stamp.moduleId()).compose((SemanticAssembler semanticAssembler) -> semanticAssembler
+                        .semantic(semantic)
+                        .pattern(pattern)
+                        .reference(reference)
+                        .fieldValues(builder -> {
+                            for (Object value : values) {
+                                builder.with(value);
+                            }
+                        }));
+            }
+        }
+    }
+}
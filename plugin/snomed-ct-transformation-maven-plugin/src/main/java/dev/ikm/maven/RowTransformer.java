@@ -0,0 +1,43 @@
+package dev.ikm.maven;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Transforms the rows of one RF2 component at a time. A row transformer keeps no state between calls: it receives
+ * every version of a component as cursors of the reader, valid only during the call, and composes them into the
+ * sessions of the context it is handed, so one instance can serve any number of files on any number of threads.
+ * Implementations are found with {@link java.util.ServiceLoader}, listed in META-INF/services/dev.ikm.maven.RowTransformer,
+ * and need a public no-argument constructor.
+ */
+public interface RowTransformer {
+
+    /**
+     * @param fileName parsed name of an RF2 file
+     * @return true if this transformer composes the rows of the file
+     */
+    boolean accepts(Rf2FileName fileName);
+
+    /**
+     * @param context namespace and sessions of the file being transformed
+     * @param versions every version of one component, sorted by effective time; rows share the id in column 0
+     */
+    void compose(RowContext context, List<Rf2Row> versions);
+
+    /**
+     * Column naming the chronology the rows are composed onto, used to keep components that share a chronology in
+     * the same commit partition and, in a delta load, to find the versions already loaded
+     * @return column index, the id column by default
+     */
+    default int chronologyColumn() {
+        return 0;
+    }
+
+    /**
+     * Row transformers whose files must have finished before files of this one may start when files are scheduled in parallel
+     * @return row transformer types this transformer depends on
+     */
+    default Set<Class<? extends RowTransformer>> dependencies() {
+        return Set.of();
+    }
+}
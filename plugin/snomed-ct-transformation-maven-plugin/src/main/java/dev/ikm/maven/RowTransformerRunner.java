@@ -0,0 +1,60 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.composer.Composer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Runs a {@link RowTransformer} over a file: reads the file component by component, accounts every row with the
+ * file's session pool so commits and checkpoints fall on component boundaries, and hands each component to the
+ * row transformer, whose versions are bulk written as one chronology when the run has a chronology writer
+ */
+public class RowTransformerRunner extends AbstractTransformer {
+    private static final Logger LOG = LoggerFactory.getLogger(RowTransformerRunner.class.getSimpleName());
+
+    private final RowTransformer rowTransformer;
+
+    public RowTransformerRunner(UUID namespace, RowTransformer rowTransformer) {
+        super(namespace);
+        this.rowTransformer = rowTransformer;
+    }
+
+    @Override
+    public Class<?> type() {
+        return rowTransformer.getClass();
+    }
+
+    @Override
+    public Set<Class<?>> dependencies() {
+        return Set.copyOf(rowTransformer.dependencies());
+    }
+
+    @Override
+    int chronologyColumn() {
+        return rowTransformer.chronologyColumn();
+    }
+
+    @Override
+    public void transform(Path file, Composer composer) {
+        SessionPool sessions = sessions(composer, file)
+                .partitionBy(chronologyColumn());
+        RowContext context = new RowContext(namespace, sessions, chronologyWriter);
+
+        try {
+            reader(file).forEachComponent(versions -> {
+                if (sessions.nextComponent(versions)) {
+                    rowTransformer.compose(context, versions);
+                }
+            });
+            sessions.complete();
+            LOG.info(file.getFileName() + ": " + sessions);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
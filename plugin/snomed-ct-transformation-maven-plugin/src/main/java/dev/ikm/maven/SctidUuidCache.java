@@ -0,0 +1,261 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.common.util.uuid.UuidT5Generator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Memoizes the name based (type 5) UUIDs generated for SCTIDs within one namespace. Entries live in open-addressing
+ * tables of longs, split into independently locked segments, optionally allocated off-heap. Misses are hashed with
+ * a SHA-1 digest held per thread, so the cache can be shared by transformers running in parallel.
+ */
+public class SctidUuidCache {
+    private static final Logger LOG = LoggerFactory.getLogger(SctidUuidCache.class.getSimpleName());
+    private static final int SEGMENT_COUNT = 64;
+    private static final long CHECK_SCTID = 138875005L;
+
+    private final UUID namespace;
+    private final byte[] namespaceBytes;
+    private final boolean offHeap;
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    private final ThreadLocal<Digester> digesters = ThreadLocal.withInitial(Digester::new);
+    private final boolean digestMatchesGenerator;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param namespace namespace the UUIDs are generated in
+     * @param expectedSize number of distinct SCTIDs expected, used to size the tables
+     * @param offHeap keep the tables in direct memory instead of on the heap
+     */
+    public SctidUuidCache(UUID namespace, int expectedSize, boolean offHeap) {
+        this.namespace = namespace;
+        this.offHeap = offHeap;
+        this.namespaceBytes = ByteBuffer.allocate(16)
+                .putLong(namespace.getMostSignificantBits())
+                .putLong(namespace.getLeastSignificantBits())
+                .array();
+        int segmentCapacity = Integer.highestOneBit(Math.max(16, expectedSize / SEGMENT_COUNT) * 2);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        this.digestMatchesGenerator = digesters.get().uuid(CHECK_SCTID)
+                .equals(UuidT5Generator.get(namespace, Long.toString(CHECK_SCTID)));
+        if (!digestMatchesGenerator) {
+            LOG.warn("SCTID UUID cache digest does not match UuidT5Generator, misses will use UuidT5Generator");
+        }
+    }
+
+    public UUID getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * @param sctid SNOMED CT identifier
+     * @return the same UUID as {@code UuidT5Generator.get(namespace, Long.toString(sctid))}
+     */
+    public UUID get(long sctid) {
+        if (sctid <= 0) {
+            throw new IllegalArgumentException("Not an SCTID: " + sctid);
+        }
+        long hash = mix(sctid);
+        Segment segment = segments[(int) (hash >>> 58)];
+        UUID uuid = segment.find(sctid, hash);
+        if (uuid != null) {
+            hits.increment();
+            return uuid;
+        }
+        misses.increment();
+        uuid = digestMatchesGenerator
+                ? digesters.get().uuid(sctid)
+                : UuidT5Generator.get(namespace, Long.toString(sctid));
+        segment.put(sctid, hash, uuid);
+        return uuid;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        long hits = hits();
+        long lookups = hits + misses();
+        return String.format("SCTID UUID cache (%s): %d entries, %d hits, %d misses, %.1f%% hit rate",
+                offHeap ? "off-heap" : "on-heap", size(), hits, misses(), lookups == 0 ? 0.0 : 100.0 * hits / lookups);
+    }
+
+    private static int slots(LongBuffer table) {
+        return table.capacity() / 3;
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * Open-addressing table of (sctid, msb, lsb) triples, with empty slots marked by a zero key
+     */
+    private class Segment {
+        private final StampedLock lock = new StampedLock();
+        private LongBuffer table;
+        private int size;
+
+        Segment(int capacity) {
+            this.table = allocate(capacity);
+        }
+
+        private LongBuffer allocate(int slots) {
+            return offHeap
+                    ? ByteBuffer.allocateDirect(slots * 3 * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer()
+                    : LongBuffer.allocate(slots * 3);
+        }
+
+        UUID find(long sctid, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            UUID uuid = probe(table, sctid, hash);
+            if (lock.validate(stamp)) {
+                return uuid;
+            }
+            stamp = lock.readLock();
+            try {
+                return probe(table, sctid, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private UUID probe(LongBuffer table, long sctid, long hash) {
+            int mask = slots(table) - 1;
+            for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+                long key = table.get(slot * 3);
+                if (key == sctid) {
+                    return new UUID(table.get(slot * 3 + 1), table.get(slot * 3 + 2));
+                }
+                if (key == 0) {
+                    return null;
+                }
+            }
+        }
+
+        void put(long sctid, long hash, UUID uuid) {
+            long stamp = lock.writeLock();
+            try {
+                if (insert(table, sctid, hash, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits())) {
+                    size++;
+                    if (size * 4 > slots(table) * 3) {
+                        grow();
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private boolean insert(LongBuffer table, long sctid, long hash, long msb, long lsb) {
+            int mask = slots(table) - 1;
+            for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+                long key = table.get(slot * 3);
+                if (key == sctid) {
+                    return false;
+                }
+                if (key == 0) {
+                    table.put(slot * 3 + 1, msb);
+                    table.put(slot * 3 + 2, lsb);
+                    table.put(slot * 3, sctid);
+                    return true;
+                }
+            }
+        }
+
+        private void grow() {
+            LongBuffer newTable = allocate(slots(table) * 2);
+            for (int slot = 0; slot < slots(table); slot++) {
+                long key = table.get(slot * 3);
+                if (key != 0) {
+                    insert(newTable, key, mix(key), table.get(slot * 3 + 1), table.get(slot * 3 + 2));
+                }
+            }
+            table = newTable;
+        }
+
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * Per thread SHA-1 state for hashing the decimal form of an SCTID in the cache's namespace
+     */
+    private class Digester {
+        private final MessageDigest sha1;
+        private final byte[] digits = new byte[20];
+        private final byte[] digest = new byte[20];
+
+        Digester() {
+            try {
+                sha1 = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        UUID uuid(long sctid) {
+            int start = digits.length;
+            long value = sctid;
+            do {
+                digits[--start] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+            sha1.reset();
+            sha1.update(namespaceBytes);
+            sha1.update(digits, start, digits.length - start);
+            try {
+                sha1.digest(digest, 0, digest.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+            digest[6] &= 0x0f; // clear version
+            digest[6] |= 0x50; // set to version 5
+            digest[8] &= 0x3f; // clear variant
+            digest[8] |= (byte) 0x80; // set to IETF variant
+            long msb = 0;
+            long lsb = 0;
+            for (int i = 0; i < 8; i++) {
+                msb = (msb << 8) | (digest[i] & 0xff);
+            }
+            for (int i = 8; i < 16; i++) {
+                lsb = (lsb << 8) | (digest[i] & 0xff);
+            }
+            return new UUID(msb, lsb);
+        }
+    }
+}
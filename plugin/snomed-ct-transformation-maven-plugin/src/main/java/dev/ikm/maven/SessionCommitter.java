@@ -0,0 +1,81 @@
+package dev.ikm.maven;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Commits the partitions of a batch of sessions on a fixed pool of commit workers. Callers partition their sessions
+ * by component, so no two workers commit versions of the same chronology. The batch call only returns once every
+ * partition has been committed, and fails if any of them failed.
+ */
+public class SessionCommitter implements AutoCloseable {
+    /**
+     * commits every partition on the calling thread
+     */
+    public static final SessionCommitter SEQUENTIAL = new SessionCommitter(1);
+
+    private final int workerCount;
+    private final ExecutorService executor;
+
+    /**
+     * @param workerCount number of partitions committed at the same time
+     */
+    public SessionCommitter(int workerCount) {
+        this.workerCount = Math.max(1, workerCount);
+        if (this.workerCount > 1) {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(this.workerCount, runnable -> {
+                Thread thread = new Thread(runnable, "snomed-commit-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    /**
+     * @param partitions commits of the partitions of one batch
+     */
+    public void commit(List<Runnable> partitions) {
+        if (executor == null || partitions.size() < 2) {
+            partitions.forEach(Runnable::run);
+            return;
+        }
+        List<Future<?>> futures = new ArrayList<>(partitions.size());
+        partitions.forEach(partition -> futures.add(executor.submit(partition)));
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException runtimeException
+                            ? runtimeException : new RuntimeException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
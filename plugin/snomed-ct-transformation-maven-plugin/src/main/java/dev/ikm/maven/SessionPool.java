@@ -0,0 +1,309 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.composer.Composer;
+import dev.ikm.tinkar.composer.Session;
+import dev.ikm.tinkar.terms.EntityProxy;
+import dev.ikm.tinkar.terms.State;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+/**
+ * Hands out one Composer session per distinct STAMP, so rows that share status, effective time and module
+ * are composed in the same session and the number of sessions and stamps grows with the number of
+ * distinct STAMPs rather than the number of rows. When the commit policy calls for it, the pooled sessions are
+ * committed and released at the next component boundary, so the versions of a component land in the same commit.
+ * With more than one commit worker, components are partitioned and each partition composes into its own
+ * Composer, so the partitions of a batch can be committed in parallel without two workers touching the same
+ * chronology. A session belongs to one Composer, so a STAMP used by components of several partitions is opened,
+ * and written, once per partition. The partitions of a batch commit independently: if one fails, the others stay
+ * committed, so the journal records the rows each partition has committed and a resumed run skips the components
+ * of the partitions that already hold them. A pool is not thread safe; use one per transformer run.
+ */
+public class SessionPool {
+    private final Composer composer;
+    private final UUID namespace;
+    private final EntityProxy.Concept author;
+    private final EntityProxy.Concept path;
+    private final CommitPolicy commitPolicy;
+    private final SessionCommitter committer;
+    private final Composer[] partitions;
+    private final Map<StampKey, Session> sessions = new HashMap<>();
+    private int partitionColumn;
+    private int partition;
+    private long requestCount;
+    private long sessionCount;
+    private long commitCount;
+    private long commitNanos;
+    private long maxCommitNanos;
+    private long pendingRows;
+    private long pendingBytes;
+    private boolean commitDue;
+    private long committedHeap = CommitPolicy.heapAfterCollection();
+    private CheckpointJournal journal;
+    private Path file;
+    private long resumedRows;
+    private long checkpointRows;
+    private long[] partitionRows;
+    private long rowIndex;
+
+    private record StampKey(State status, long time, long moduleId, int partition) {
+    }
+
+    public SessionPool(Composer composer, UUID namespace) {
+        this(composer, namespace, CommitPolicy.AT_END);
+    }
+
+    public SessionPool(Composer composer, UUID namespace, CommitPolicy commitPolicy) {
+        this(composer, namespace, commitPolicy, SessionCommitter.SEQUENTIAL);
+    }
+
+    public SessionPool(Composer composer, UUID namespace, CommitPolicy commitPolicy, SessionCommitter committer) {
+        this(composer, namespace, commitPolicy, committer, i -> new Composer("Snomed Transformer Composer partition " + i));
+    }
+
+    SessionPool(Composer composer, UUID namespace, CommitPolicy commitPolicy, SessionCommitter committer,
+                IntFunction<Composer> partitionComposer) {
+        this.composer = composer;
+        this.namespace = namespace;
+        this.commitPolicy = commitPolicy;
+        this.committer = committer;
+        this.partitions = new Composer[committer.getWorkerCount()];
+        if (partitions.length == 1) {
+            partitions[0] = composer;
+        } else {
+            for (int i = 0; i < partitions.length; i++) {
+                partitions[i] = partitionComposer.apply(i);
+            }
+        }
+        this.author = SnomedUtility.getUserConcept(namespace);
+        this.path = SnomedUtility.getPathConcept();
+    }
+
+    /**
+     * Partitions rows by another column than the id, for files whose rows with different ids compose onto the same
+     * chronology
+     * @param column column identifying the chronology a row is composed onto
+     * @return this pool
+     */
+    public SessionPool partitionBy(int column) {
+        this.partitionColumn = column;
+        return this;
+    }
+
+    /**
+     * Records a checkpoint in the journal after every commit
+     * @param journal checkpoint journal of the run
+     * @param file RF2 file the rows come from
+     * @param resumedRows rows of the file committed by an earlier run and skipped by the reader
+     * @param resumed true if the file resumes where an earlier run stopped, false if it is read again from the start
+     * @return this pool
+     * @throws IllegalStateException if an earlier run committed only some partitions of a batch with another number
+     * of commit workers, so its partitions cannot be matched
+     */
+    public SessionPool checkpointTo(CheckpointJournal journal, Path file, long resumedRows, boolean resumed) {
+        this.journal = journal;
+        this.file = file;
+        this.resumedRows = resumedRows;
+        this.checkpointRows = resumedRows;
+        this.commitCount = journal.getCommitId(file);
+        long[] committedPartitionRows = journal.getCommittedPartitionRows(file);
+        if (committedPartitionRows.length > 0 && resumed) {
+            if (committedPartitionRows.length != partitions.length) {
+                throw new IllegalStateException(file.getFileName() + " was partly committed by " + committedPartitionRows.length
+                        + " commit workers and has to be resumed with as many, not " + partitions.length);
+            }
+            partitionRows = committedPartitionRows;
+        }
+        return this;
+    }
+
+    /**
+     * @param status status of the row
+     * @param time epoch time of the row
+     * @param moduleId SCTID of the row's module
+     * @return the session for this STAMP, opened on first use
+     */
+    public Session open(State status, long time, long moduleId) {
+        requestCount++;
+        StampKey key = new StampKey(status, time, moduleId, partition);
+        Session session = sessions.get(key);
+        if (session == null) {
+            session = partitions[partition].open(status, time, author, TransformationHelper.getMetadataConcept(namespace, moduleId), path);
+            sessions.put(key, session);
+            sessionCount++;
+        }
+        return session;
+    }
+
+    /**
+     * Accounts for the rows of a component before it is composed, committing the pooled sessions first if a commit
+     * is due, so every version of a component lands in the same commit and the same partition
+     * @param versions rows of the component about to be composed
+     * @return false if the component's partition committed it in an earlier run, so it must not be composed again
+     */
+    public boolean nextComponent(List<Rf2Row> versions) {
+        if (commitDue) {
+            commit(false);
+        }
+        if (partitions.length > 1) {
+            partition = Math.floorMod(versions.get(0).columnHash(partitionColumn), partitions.length);
+        }
+        rowIndex += versions.size();
+        if (partitionRows != null && resumedRows + rowIndex <= partitionRows[partition]) {
+            return false;
+        }
+        for (Rf2Row row : versions) {
+            pendingRows++;
+            pendingBytes += row.byteLength();
+            commitDue = commitDue || commitPolicy.isCommitDue(pendingRows, pendingBytes, committedHeap);
+        }
+        return true;
+    }
+
+    /**
+     * Partitions a chronology built from rows read earlier, such as one fused from several components, and accounts
+     * for it as one row, committing the pooled sessions first if a commit is due
+     * @param chronologyId id of the chronology about to be composed
+     * @param bytes approximate size of what is composed onto it
+     */
+    public void nextChronology(long chronologyId, long bytes) {
+        if (commitDue) {
+            commit(false);
+        }
+        if (partitions.length > 1) {
+            partition = Math.floorMod(Long.hashCode(chronologyId), partitions.length);
+        }
+        pendingRows++;
+        pendingBytes += bytes;
+        commitDue = commitPolicy.isCommitDue(pendingRows, pendingBytes, committedHeap);
+    }
+
+    /**
+     * commits and releases every session of the pool, one commit worker per partition
+     */
+    public void commit() {
+        commit(false);
+    }
+
+    /**
+     * Commits the sessions left after the last row of the file and records the file as complete. Without a commit
+     * budget, a checkpoint journal or more than one commit worker the sessions are left open on the composer, to be
+     * committed with it at the end of the run.
+     */
+    public void complete() {
+        if (commitPolicy.isAtEnd() && journal == null && partitions.length == 1) {
+            return;
+        }
+        commit(true);
+    }
+
+    private void commit(boolean complete) {
+        List<List<Session>> pending = new ArrayList<>(partitions.length);
+        for (int i = 0; i < partitions.length; i++) {
+            pending.add(new ArrayList<>());
+        }
+        sessions.forEach((key, session) -> pending.get(key.partition()).add(session));
+        boolean[] committed = new boolean[partitions.length];
+        List<Runnable> batch = new ArrayList<>(partitions.length);
+        for (int i = 0; i < partitions.length; i++) {
+            Composer partitionComposer = partitions[i];
+            List<Session> partitionSessions = pending.get(i);
+            int index = i;
+            if (partitionSessions.isEmpty()) {
+                committed[index] = true;
+            } else {
+                batch.add(() -> {
+                    partitionSessions.forEach(partitionComposer::commitSession);
+                    committed[index] = true;
+                });
+            }
+        }
+        long start = System.nanoTime();
+        try {
+            committer.commit(batch);
+        } catch (RuntimeException e) {
+            checkpointPartitions(committed);
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        commitNanos += elapsed;
+        maxCommitNanos = Math.max(maxCommitNanos, elapsed);
+        sessions.clear();
+        commitCount++;
+        pendingRows = 0;
+        pendingBytes = 0;
+        commitDue = false;
+        committedHeap = CommitPolicy.heapAfterCollection();
+        checkpointRows = resumedRows + rowIndex;
+        if (partitionRows != null && Arrays.stream(partitionRows).allMatch(rows -> rows <= checkpointRows)) {
+            partitionRows = null;
+        }
+        if (journal != null) {
+            // an intermediate commit runs before the component that triggered it is counted
+            journal.checkpoint(file, checkpointRows, commitCount, complete);
+        }
+    }
+
+    /**
+     * Records the rows committed by each partition when only some partitions of a batch committed, so a resumed run
+     * composes the components of the batch again only in the partitions that failed
+     */
+    private void checkpointPartitions(boolean[] committed) {
+        if (journal == null || partitions.length == 1) {
+            return;
+        }
+        long[] rows = new long[partitions.length];
+        for (int i = 0; i < rows.length; i++) {
+            long previousRows = partitionRows == null ? checkpointRows : Math.max(checkpointRows, partitionRows[i]);
+            rows[i] = committed[i] ? Math.max(previousRows, resumedRows + rowIndex) : previousRows;
+        }
+        journal.checkpointPartitions(file, rows);
+    }
+
+    /**
+     * @return number of times a session was requested, i.e. the sessions that would have been opened without the pool
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * @return number of sessions actually opened
+     */
+    public long getSessionCount() {
+        return sessionCount;
+    }
+
+    /**
+     * @return number of commits made by the pool
+     */
+    public long getCommitCount() {
+        return commitCount;
+    }
+
+    /**
+     * @return time spent committing, summed over the commits made by the pool
+     */
+    public long getCommitNanos() {
+        return commitNanos;
+    }
+
+    /**
+     * @return time taken by the slowest commit made by the pool
+     */
+    public long getMaxCommitNanos() {
+        return maxCommitNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Sessions: " + requestCount + " rows, " + sessionCount + " sessions opened, " + commitCount + " commits";
+    }
+}
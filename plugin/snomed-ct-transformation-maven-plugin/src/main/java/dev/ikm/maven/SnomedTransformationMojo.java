@@ -15,18 +15,29 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.Arrays;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
 import java.util.UUID;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.stream.Stream;
 
 @Mojo(name = "run-snomed-transformation", defaultPhase = LifecyclePhase.INSTALL)
 public class SnomedTransformationMojo extends AbstractMojo {
     private static final Logger LOG = LoggerFactory.getLogger(SnomedTransformationMojo.class.getSimpleName());
+    public static final String STAGING_DIRECTORY = "rf2-staging";
+    /**
+     * components of the Snapshot files the integration tests check row by row, the only readers of staged files
+     */
+    private static final Set<String> STAGED_COMPONENTS = Set.of("Concept", "Description", "TextDefinition", "OWLExpression", "Identifier");
+    public static final String SORT_DIRECTORY = "rf2-sorted";
+    public static final String METRICS_REPORT = "transformation-metrics.json";
 
     @Parameter(property = "origin.namespace", required = true)
     String namespaceString;
@@ -40,24 +51,94 @@ public class SnomedTransformationMojo extends AbstractMojo {
     private String controllerName;
     @Parameter(property = "skipUnzip", defaultValue = "false")
     private boolean skipUnzip;
+    @Parameter(property = "readFromZip", defaultValue = "false")
+    private boolean readFromZip;
+    @Parameter(property = "extractIncludes")
+    private List<String> extractIncludes;
+    @Parameter(property = "loadMode", defaultValue = "FULL")
+    private LoadMode loadMode;
+    @Parameter(property = "checkpoint", defaultValue = "false")
+    private boolean checkpoint;
+    @Parameter(property = "resume", defaultValue = "false")
+    private boolean resume;
+    @Parameter(property = "parallel", defaultValue = "false")
+    private boolean parallel;
+    @Parameter(property = "workerCount", defaultValue = "0")
+    private int workerCount;
+    @Parameter(property = "uuidCacheSize", defaultValue = "1000000")
+    private int uuidCacheSize;
+    @Parameter(property = "uuidCacheOffHeap", defaultValue = "false")
+    private boolean uuidCacheOffHeap;
+    @Parameter(property = "commitRows", defaultValue = "0")
+    private long commitRows;
+    @Parameter(property = "commitMegabytes", defaultValue = "0")
+    private long commitMegabytes;
+    @Parameter(property = "heapBudgetMegabytes", defaultValue = "-1")
+    private long heapBudgetMegabytes;
+    @Parameter(property = "commitWorkers", defaultValue = "1")
+    private int commitWorkers;
+    @Parameter(property = "fuseElAxioms", defaultValue = "false")
+    private boolean fuseElAxioms;
+    @Parameter(property = "inferredRelationships", defaultValue = "false")
+    private boolean inferredRelationships;
+    @Parameter(property = "stageColumnar", defaultValue = "false")
+    private boolean stageColumnar;
+    @Parameter(property = "bulkWrite", defaultValue = "false")
+    private boolean bulkWrite;
+    @Parameter(property = "sortRows", defaultValue = "false")
+    private boolean sortRows;
+    @Parameter(property = "sortMegabytes", defaultValue = "256")
+    private long sortMegabytes;
+    @Parameter(property = "preRegisterNids", defaultValue = "false")
+    private boolean preRegisterNids;
+    @Parameter(property = "hierarchyOrderedNids", defaultValue = "false")
+    private boolean hierarchyOrderedNids;
+    @Parameter(property = "metricsReport", defaultValue = "false")
+    private boolean metricsReport;
 
     private UUID namespace;
+    private CommitPolicy commitPolicy;
+    private SessionCommitter committer;
+    private CheckpointJournal journal;
+    private ChronologyWriter chronologyWriter;
+    private Rf2Sorter sorter;
+    private TransformationMetrics metrics;
+    private List<RowTransformer> rowTransformers;
 
     public void execute() throws MojoExecutionException {
+        if (inferredRelationships && loadMode.isIncremental()) {
+            throw new MojoExecutionException("inferredRelationships builds the inferred axioms from every relationship of a concept, "
+                    + "which a " + loadMode + " load does not have; run the reasoner instead");
+        }
+        if (fuseElAxioms && loadMode.isIncremental()) {
+            throw new MojoExecutionException("fuseElAxioms builds the EL++ stated axioms from every OWL axiom of a concept, "
+                    + "which a " + loadMode + " load does not have; run the OWL transform instead");
+        }
         try {
             this.namespace = UUID.fromString(namespaceString);
 
             File datastore = new File(datastorePath);
             LOG.info("inputDirectoryPath: " + inputDirectoryPath);
-            File inputFileOrDirectory;
+            if (!skipUnzip && readFromZip) {
+                try (FileSystem zipFileSystem = FileSystems.newFileSystem(Path.of(inputDirectoryPath))) {
+                    Path terminologyFolder = searchTerminologyFolder(zipFileSystem.getPath("/"), loadMode);
+                    if (terminologyFolder == null) {
+                        throw new FileNotFoundException("The 'Terminology' folder could not be found...");
+                    }
+                    LOG.info("Reading RF2 files from " + inputDirectoryPath + "!" + terminologyFolder.getParent());
+                    transformFile(datastore, terminologyFolder.getParent());
+                }
+                return;
+            }
+            Path inputFileOrDirectory;
             if (skipUnzip) {
                 // Let lucene shut down???
                 //Thread.sleep(10000);
-                inputFileOrDirectory = new File(inputDirectoryPath);
+                inputFileOrDirectory = Path.of(inputDirectoryPath);
             } else {
                 String unzippedData = unzipRawData(inputDirectoryPath);
                 LOG.info("unzippedData: " + unzippedData);
-                inputFileOrDirectory = new File(unzippedData);
+                inputFileOrDirectory = Path.of(unzippedData);
             }
             LOG.info("inputFileOrDirectory: " + inputFileOrDirectory);
             validateInputDirectory(inputFileOrDirectory);
@@ -65,62 +146,64 @@ public class SnomedTransformationMojo extends AbstractMojo {
             transformFile(datastore, inputFileOrDirectory);
         } catch (IllegalArgumentException e) {
             throw new MojoExecutionException("Invalid namespace for UUID formatting");
+        } catch (IllegalStateException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     private String unzipRawData(String zipFilePath) throws IOException {
-        File outputDirectory = new File(dataOutputPath);
-        try (ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFilePath))) {
-            ZipEntry zipEntry;
-            while ((zipEntry = zis.getNextEntry()) != null) {
-                File newFile = new File(outputDirectory, zipEntry.getName());
-                if (zipEntry.isDirectory()) {
-                    newFile.mkdirs();
-                } else {
-                    new File(newFile.getParent()).mkdirs();
-                    try (FileOutputStream fos = new FileOutputStream(newFile)) {
-                        byte[] buffer = new byte[1024];
-                        int len;
-                        while ((len = zis.read(buffer)) > 0) {
-                            fos.write(buffer, 0, len);
-                        }
-                    }
-                }
-                zis.closeEntry();
-            }
+        Path outputDirectory = Path.of(dataOutputPath);
+        int workers = workerCount > 0 ? workerCount : Runtime.getRuntime().availableProcessors();
+        List<String> includes = extractIncludes == null || extractIncludes.isEmpty()
+                ? Rf2Extractor.includes(Path.of(zipFilePath), loadMode) : extractIncludes;
+        if (stageColumnar) {
+            includes = new ArrayList<>(includes);
+            includes.add(LoadMode.SNAPSHOT.getReleaseFolder() + "/Terminology/*");
         }
-        File terminologyFolder = searchTerminologyFolder(outputDirectory);
+        new Rf2Extractor(Path.of(zipFilePath), outputDirectory, includes, workers).extract();
+        Path terminologyFolder = searchTerminologyFolder(outputDirectory, loadMode);
 
         if (terminologyFolder != null) {
-            return terminologyFolder.getAbsolutePath();
+            return terminologyFolder.getParent().toAbsolutePath().toString();
         } else {
             throw new FileNotFoundException("The 'Terminology' folder could not be found...");
         }
     }
 
-    private static File searchTerminologyFolder(File dir) {
-        if (dir.isDirectory()) {
-            File[] files = dir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (file.isDirectory() && file.getName().equals("Terminology") &&
-                            file.getParentFile().getName().equals("Full")) {
-                        return file;
-                    }
-                    File found = searchTerminologyFolder(file);
-                    if (found != null) {
-                        return found;
-                    }
-                }
+    /**
+     * Finds the Terminology folder of the load mode below a directory, which may also be the root of a zip file system.
+     * A snapshot load falls back to the Full folder, whose rows are then collapsed to their latest version.
+     */
+    static Path searchTerminologyFolder(Path dir, LoadMode loadMode) throws IOException {
+        Path terminologyFolder = searchTerminologyFolder(dir, loadMode.getReleaseFolder());
+        if (terminologyFolder == null && loadMode.getFallback() != null) {
+            terminologyFolder = searchTerminologyFolder(dir, loadMode.getFallback().getReleaseFolder());
+            if (terminologyFolder != null) {
+                LOG.info("No " + loadMode.getReleaseFolder() + "/Terminology folder, collapsing " + terminologyFolder + " to the latest versions");
             }
         }
-        return null;
+        return terminologyFolder;
+    }
+
+    private static Path searchTerminologyFolder(Path dir, String releaseFolder) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return null;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            return paths.filter(path -> Files.isDirectory(path) && isNamed(path, "Terminology") && isNamed(path.getParent(), releaseFolder))
+                    .findFirst()
+                    .orElse(null);
+        }
     }
 
-    private void validateInputDirectory(File inputFileOrDirectory) throws MojoExecutionException {
-        if (!inputFileOrDirectory.exists()) {
+    private static boolean isNamed(Path path, String name) {
+        return path != null && path.getFileName() != null && path.getFileName().toString().replace("/", "").equals(name);
+    }
+
+    private void validateInputDirectory(Path inputFileOrDirectory) throws MojoExecutionException {
+        if (!Files.exists(inputFileOrDirectory)) {
             throw new RuntimeException("Invalid input directory or file. Directory or file does not exist");
         }
     }
@@ -129,24 +212,79 @@ public class SnomedTransformationMojo extends AbstractMojo {
      * Transforms each snomed file in a directory based on filename
      *
      * @param datastore            location of datastore to write entities to
-     * @param inputFileOrDirectory directory containing snomed files
+     * @param inputFileOrDirectory directory containing snomed files, on disk or inside the release zip
      */
-    public void transformFile(File datastore, File inputFileOrDirectory) {
-        LOG.info("########## Snomed Transformer Starting...");
+    public void transformFile(File datastore, Path inputFileOrDirectory) {
+        LOG.info("########## Snomed Transformer Starting... (" + loadMode + " load)");
+        if (loadMode.isIncremental() && !datastore.isDirectory()) {
+            throw new RuntimeException("A " + loadMode + " load needs an existing datastore: " + datastore);
+        }
+        if (inferredRelationships && listRf2Files(inputFileOrDirectory).stream()
+                .noneMatch(file -> Rf2FileName.parse(file.getFileName().toString()).component().equals("Relationship"))) {
+            throw new IllegalStateException("inferredRelationships is set but there is no relationship file in " + inputFileOrDirectory
+                    + " to build the inferred axioms from; run the reasoner instead");
+        }
         initializeDatastore(datastore);
+        SctidUuidCache uuidCache = SnomedUtility.initializeUuidCache(namespace, uuidCacheSize, uuidCacheOffHeap);
+        TransformationHelper.initializeDictionaries(namespace);
+        commitPolicy = CommitPolicy.of(commitRows, commitMegabytes, heapBudgetMegabytes);
+        LOG.info(commitPolicy.toString());
+        committer = new SessionCommitter(commitWorkers > 0 ? commitWorkers : Runtime.getRuntime().availableProcessors());
+        LOG.info("Committing sessions with " + committer.getWorkerCount() + " commit workers");
+        journal = checkpoint || resume ? CheckpointJournal.open(datastore.toPath(), resume) : null;
+        metrics = metricsReport ? new TransformationMetrics() : null;
+        if (stageColumnar) {
+            long start = System.currentTimeMillis();
+            stageFiles(inputFileOrDirectory);
+            recordStage("staging", start);
+        }
+        chronologyWriter = bulkWrite ? new ChronologyWriter(namespace) : null;
+        sorter = sortRows ? new Rf2Sorter(Path.of(dataOutputPath, SORT_DIRECTORY), sortMegabytes * 1024 * 1024) : null;
 
         EntityService.get().beginLoadPhase();
         try {
-            Composer composer = new Composer("Snomed Transformer Composer");
-            processFilesFromInput(inputFileOrDirectory, composer);
-            composer.commitAllSessions();
+            if (preRegisterNids || hierarchyOrderedNids) {
+                long start = System.currentTimeMillis();
+                int workers = workerCount > 0 ? workerCount : Runtime.getRuntime().availableProcessors();
+                new NidRegistrar(namespace, workers)
+                        .hierarchyOrdered(hierarchyOrderedNids)
+                        .register(listRf2Files(inputFileOrDirectory));
+                recordStage("nidRegistration", start);
+            }
+            long start = System.currentTimeMillis();
+            if (parallel) {
+                processFilesInParallel(inputFileOrDirectory);
+            } else {
+                Composer composer = new Composer("Snomed Transformer Composer");
+                processFilesFromInput(inputFileOrDirectory, composer);
+                recordStage("transform", start);
+                start = System.currentTimeMillis();
+                composer.commitAllSessions();
+            }
+            recordStage(parallel ? "transform" : "finalCommit", start);
         } finally {
+            if (metrics != null) {
+                metrics.writeReport(Path.of(dataOutputPath, METRICS_REPORT), uuidCache);
+            }
+            LOG.info(uuidCache.toString());
+            LOG.info(TransformationHelper.dictionarySummary());
+            if (chronologyWriter != null) {
+                LOG.info(chronologyWriter.toString());
+            }
+            committer.close();
+            SnomedUtility.clearUuidCache();
             EntityService.get().endLoadPhase();
             PrimitiveData.stop();
             LOG.info("########## Snomed Transformer Finishing...");
         }
     }
 
+    private void recordStage(String name, long start) {
+        if (metrics != null) {
+            metrics.stage(name, start);
+        }
+    }
+
     private void initializeDatastore(File datastore) {
         CachingService.clearAll();
         ServiceProperties.set(ServiceKeys.DATA_STORE_ROOT, datastore);
@@ -154,48 +292,164 @@ public class SnomedTransformationMojo extends AbstractMojo {
         PrimitiveData.start();
     }
 
-    private void processFilesFromInput(File inputFileOrDirectory, Composer composer) {
-        if (inputFileOrDirectory.isDirectory()) {
-            Arrays.stream(inputFileOrDirectory.listFiles())
-                    .filter(file -> file.getName().endsWith(".txt"))
-                    .forEach(file -> processIndividualFile(file, composer));
-        } else if (inputFileOrDirectory.isFile() && inputFileOrDirectory.getName().endsWith(".txt")) {
-            processIndividualFile(inputFileOrDirectory, composer);
+    /**
+     * Converts the Snapshot files the integration tests check into the columnar layout, so the tests can read their
+     * rows without parsing the RF2 text. The files are looked up next to the release folder being transformed; the
+     * transformation itself still reads the RF2 text.
+     *
+     * @param inputFileOrDirectory release folder containing snomed files
+     */
+    private void stageFiles(Path inputFileOrDirectory) {
+        Path stagingDirectory = Path.of(dataOutputPath, STAGING_DIRECTORY);
+        long start = System.currentTimeMillis();
+        Path releaseDirectory = Files.isDirectory(inputFileOrDirectory) && inputFileOrDirectory.getParent() != null
+                ? inputFileOrDirectory.getParent() : inputFileOrDirectory;
+        List<Path> files = filesOfRelease(walkRf2Files(releaseDirectory), LoadMode.SNAPSHOT.getReleaseFolder()).stream()
+                .filter(file -> STAGED_COMPONENTS.contains(Rf2FileName.parse(file.getFileName().toString()).component()))
+                .toList();
+        for (Path file : files) {
+            try {
+                Rf2ColumnarWriter.stage(file, stagingDirectory);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
         }
+        LOG.info("Staged " + files.size() + " RF2 files in " + stagingDirectory + " in " + (System.currentTimeMillis() - start) + " ms");
     }
 
-    private void processIndividualFile(File file, Composer composer) {
-        String fileName = file.getName();
+    private void processFilesFromInput(Path inputFileOrDirectory, Composer composer) {
+        filesToTransform(inputFileOrDirectory).forEach(file -> processIndividualFile(file, composer));
+    }
+
+    /**
+     * Runs the transformer of every file concurrently, honoring the dependencies declared by the transformers
+     *
+     * @param inputFileOrDirectory directory containing snomed files
+     */
+    private void processFilesInParallel(Path inputFileOrDirectory) {
+        int workers = workerCount > 0 ? workerCount : Runtime.getRuntime().availableProcessors();
+        LOG.info("Transforming files in parallel with " + workers + " workers");
+        TransformationScheduler scheduler = new TransformationScheduler(workers, metrics);
+        filesToTransform(inputFileOrDirectory).forEach(file -> {
+            Transformer transformer = getTransformer(file.getFileName().toString());
+            if (transformer != null) {
+                scheduler.schedule(file, transformer);
+            } else {
+                LOG.info("This file cannot be processed at the moment : " + file.getFileName());
+            }
+        });
+        scheduler.run();
+    }
+
+    /**
+     * @return the RF2 files to transform, leaving out the files an earlier run has completed when resuming
+     */
+    private List<Path> filesToTransform(Path inputFileOrDirectory) {
+        return listRf2Files(inputFileOrDirectory).stream()
+                .filter(file -> {
+                    if (journal != null && journal.isComplete(file)) {
+                        LOG.info("Skipping " + file.getFileName() + ", completed by an earlier run");
+                        return false;
+                    }
+                    return true;
+                })
+                .toList();
+    }
+
+    /**
+     * Lists the RF2 files anywhere below a directory, such as the Terminology and Refset/Language folders of a release.
+     * Only files of the load mode's release type are kept, or of the Full release when a snapshot load falls back to it.
+     * @return the RF2 files below a directory sorted by path, or the file itself
+     */
+    private List<Path> listRf2Files(Path inputFileOrDirectory) {
+        if (Files.isDirectory(inputFileOrDirectory)) {
+            List<Path> files = walkRf2Files(inputFileOrDirectory);
+            List<Path> releaseFiles = filesOfRelease(files, loadMode.getReleaseFolder());
+            if (releaseFiles.isEmpty() && loadMode.getFallback() != null) {
+                releaseFiles = filesOfRelease(files, loadMode.getFallback().getReleaseFolder());
+            }
+            return releaseFiles;
+        } else if (Files.isRegularFile(inputFileOrDirectory) && Rf2FileName.parse(inputFileOrDirectory.getFileName().toString()) != null) {
+            return List.of(inputFileOrDirectory);
+        }
+        return List.of();
+    }
+
+    private static List<Path> walkRf2Files(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(file -> Files.isRegularFile(file) && Rf2FileName.parse(file.getFileName().toString()) != null)
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static List<Path> filesOfRelease(List<Path> files, String releaseType) {
+        return files.stream()
+                .filter(file -> Rf2FileName.parse(file.getFileName().toString()).releaseType().equals(releaseType))
+                .toList();
+    }
+
+    private void processIndividualFile(Path file, Composer composer) {
+        String fileName = file.getFileName().toString();
         Transformer transformer = getTransformer(fileName);
 
         if (transformer != null) {
             LOG.info("### Transformer Starting for file: " + fileName);
-            transformer.transform(file, composer);
+            if (metrics != null) {
+                metrics.measure(file, transformer, composer);
+            } else {
+                transformer.transform(file, composer);
+            }
             LOG.info("### Transformer Finishing for file : " + fileName);
         } else {
-            LOG.info("This file cannot be processed at the moment : " + file.getName());
+            LOG.info("This file cannot be processed at the moment : " + fileName);
         }
     }
 
     /**
-     * Checks files for matching keywords and uses appropriate transformer
+     * Picks the transformer for the component type or refset named by an RF2 file name, so refsets such as
+     * der2_ciRefset_DescriptionType are not mistaken for the component files they mention. Row transformers
+     * registered with ServiceLoader come first; files whose transformer needs the whole file are matched here.
      *
      * @param fileName File for Transformer match
      */
     private Transformer getTransformer(String fileName) {
-        if (fileName.contains("Concept")) {
-            return new ConceptTransformer(namespace);
-        } else if (fileName.contains("Definition")) {
-            return new DefinitionTransformer(namespace);
-        } else if (fileName.contains("Description")) {
-            return new DescriptionTransformer(namespace);
-        } else if (fileName.contains("Language")) {
-            return new LanguageTransformer(namespace);
-        } else if (fileName.contains("Identifier")) {
-            return new IdentifierTransformer(namespace);
-        } else if (fileName.contains("OWLExpression")) {
-            return new AxiomSyntaxTransformer(namespace);
-        }
-        return null;
+        Rf2FileName rf2FileName = Rf2FileName.parse(fileName);
+        if (rf2FileName == null) {
+            return null;
+        }
+        AbstractTransformer transformer = rowTransformers().stream()
+                .filter(rowTransformer -> rowTransformer.accepts(rf2FileName))
+                .findFirst()
+                .<AbstractTransformer>map(rowTransformer -> new RowTransformerRunner(namespace, rowTransformer))
+                .orElseGet(() -> switch (rf2FileName.component()) {
+                    case "OWLExpression" -> new AxiomSyntaxTransformer(namespace, fuseElAxioms);
+                    case "Relationship" -> inferredRelationships ? new RelationshipTransformer(namespace) : null;
+                    default -> null;
+                });
+        if (transformer != null) {
+            transformer.setCommitPolicy(commitPolicy);
+            transformer.setCommitter(committer);
+            transformer.setLoadMode(loadMode);
+            transformer.setCheckpointJournal(journal);
+            transformer.setChronologyWriter(chronologyWriter);
+            transformer.setSorter(sorter);
+            transformer.setMetrics(metrics);
+        }
+        return transformer;
+    }
+
+    /**
+     * @return the row transformers on the plugin's class path, loaded once per run and shared by every file
+     */
+    private List<RowTransformer> rowTransformers() {
+        if (rowTransformers == null) {
+            rowTransformers = ServiceLoader.load(RowTransformer.class, getClass().getClassLoader()).stream()
+                    .map(ServiceLoader.Provider::get)
+                    .toList();
+        }
+        return rowTransformers;
     }
 }
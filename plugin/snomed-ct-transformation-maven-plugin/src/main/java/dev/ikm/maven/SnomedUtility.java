@@ -30,15 +30,35 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.regex.MatchResult;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.LongAdder;
 
 
 public class SnomedUtility {
 
     private static final Logger LOG = LoggerFactory.getLogger(SnomedUtility.class.getSimpleName());
     private final List<Entity<? extends EntityVersion>> STAMP_LIST = new ArrayList<>();
+    private static volatile SctidUuidCache uuidCache;
+    private static final ThreadLocal<OwlAxiomRewriter> OWL_AXIOM_REWRITERS = new ThreadLocal<>();
+    private static LongAdder generatedUuids;
+
+    /**
+     * starts memoizing the UUIDs generated for SCTIDs in the given namespace, shared by every transformer of the run
+     * @param namespace namespace of the run
+     * @param expectedSize expected number of distinct SCTIDs
+     * @param offHeap keep the cache tables in direct memory
+     * @return the new cache
+     */
+    public static SctidUuidCache initializeUuidCache(UUID namespace, int expectedSize, boolean offHeap) {
+        uuidCache = new SctidUuidCache(namespace, expectedSize, offHeap);
+        return uuidCache;
+    }
+
+    /**
+     * stops memoizing UUIDs and releases the cache
+     */
+    public static void clearUuidCache() {
+        uuidCache = null;
+    }
 
     /**
      * taking time stamp and making it an epoch
@@ -49,6 +69,15 @@ public class SnomedUtility {
         return DateTimeUtil.compressedDateParse(effectiveTime);
     }
 
+    /**
+     * taking time stamp read as a number and making it an epoch
+     * @param effectiveTime dates in yyyyMMdd format
+     * @return long value of epochTime
+     */
+    public static long snomedTimestampToEpochSeconds(int effectiveTime) {
+        return DateTimeUtil.compressedDateParse(Integer.toString(effectiveTime));
+    }
+
     /**
      * retrieves user concept
      * @return the snomed author
@@ -66,47 +95,19 @@ public class SnomedUtility {
         return TinkarTerm.DEVELOPMENT_PATH;
     }
 
-    private static Pattern getIdPattern() {
-        // Expecting a Snomed identifier following a colon as shown below
-        // :609096000
-        // Pattern of at least one numeric character after colon
-        return Pattern.compile("(?<=:)([0-9]+)");
-    }
-
-    private static String idToPublicId(UUID namespace, MatchResult id) {
-        String idString = id.group();
-        String publicIdString = PublicIds.of(generateUUID(namespace, idString)).toString();
-        return publicIdString.replaceAll("\"", "");
-    }
-
-    private static Pattern getFullIriPattern() {
-        // A full IRI is an IRI between "<" and ">"
-        // A Prefix declaration is a full IRI
-        // An Ontology declaration is a full IRI or an abbreviated IRI
-        // but Snomed only uses full IRI, so...
-        // <http://www.w3.org/2002/07/owl#>
-        // Pattern of characters between less-than and greater-than characters
-        return Pattern.compile("<[^>]+>");
-    }
-
-    private static String fullIriToPublicId(UUID namespace, MatchResult id) {
-        String fullIriString = id.group();
-        // the IRI for the public id does not include "<" or ">"
-        String iriString = fullIriString.substring(1, fullIriString.length() - 1);
-        // Generate UUID from URL bytes
-        String publicIdString = PublicIds.of(UuidT5Generator.get(namespace, iriString)).toString();
-        return "<" + publicIdString.replaceAll("\"", "") + ">";
-    }
-
+    /**
+     * Replaces the full IRIs and SCTIDs of an OWL expression with their public ids
+     * @param namespace namespace of the run
+     * @param owlExpression OWL functional syntax expression
+     * @return the expression with public ids
+     */
     public static String owlAxiomIdsToPublicIds(UUID namespace, String owlExpression) {
-        String publicIdOwlExpression = owlExpression;
-        // Replace IRIs with a UUID representation
-        Matcher urlMatcher = getFullIriPattern().matcher(publicIdOwlExpression);
-        publicIdOwlExpression = urlMatcher.replaceAll(m -> fullIriToPublicId(namespace, m));
-        // Replace Snomed identifiers with a UUID representation
-        Matcher idMatcher = getIdPattern().matcher(publicIdOwlExpression);
-        publicIdOwlExpression = idMatcher.replaceAll(m -> idToPublicId(namespace, m));
-        return publicIdOwlExpression;
+        OwlAxiomRewriter rewriter = OWL_AXIOM_REWRITERS.get();
+        if (rewriter == null || !rewriter.getNamespace().equals(namespace)) {
+            rewriter = new OwlAxiomRewriter(namespace);
+            OWL_AXIOM_REWRITERS.set(rewriter);
+        }
+        return rewriter.rewrite(owlExpression);
     }
 
 
@@ -146,8 +147,53 @@ public class SnomedUtility {
     }
 
     public static UUID generateUUID(UUID namespace, String id) {
+        LongAdder counter = generatedUuids;
+        if (counter != null) {
+            counter.increment();
+        }
+        SctidUuidCache cache = uuidCache;
+        if (cache != null && isSctid(id) && cache.getNamespace().equals(namespace)) {
+            return cache.get(Long.parseLong(id));
+        }
         return UuidT5Generator.get(namespace, id);
     }
+
+    public static UUID generateUUID(UUID namespace, long sctid) {
+        LongAdder counter = generatedUuids;
+        if (counter != null) {
+            counter.increment();
+        }
+        SctidUuidCache cache = uuidCache;
+        if (cache != null && cache.getNamespace().equals(namespace)) {
+            return cache.get(sctid);
+        }
+        return UuidT5Generator.get(namespace, Long.toString(sctid));
+    }
+
+    /**
+     * Only a run that reports metrics counts its UUIDs; the counter is read without synchronization, so it is set
+     * before the run starts its workers and cleared after they finish
+     * @param counter counts every component UUID generated from now on, from the cache or not, or null to stop counting
+     */
+    static void countGeneratedUuids(LongAdder counter) {
+        generatedUuids = counter;
+    }
+
+    /**
+     * @return true if the id is written the way Long.toString writes an SCTID, so it hashes to the same UUID
+     */
+    private static boolean isSctid(String id) {
+        if (id.isEmpty() || id.length() > 18 || id.charAt(0) == '0') {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
     public static Concept getSnomedIdentifierSchemeConcept(){
         Concept snomedIntID = Concept.make(PublicIds.of(UuidUtil.fromSNOMED("705113004")));
         return snomedIntID;
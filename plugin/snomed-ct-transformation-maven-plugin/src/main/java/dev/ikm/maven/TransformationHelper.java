@@ -1,36 +1,64 @@
 package dev.ikm.maven;
 
+import dev.ikm.tinkar.common.id.PublicIds;
 import dev.ikm.tinkar.terms.EntityProxy;
 import dev.ikm.tinkar.terms.TinkarTerm;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.UUID;
 
 public class TransformationHelper {
-    private static final Map<String, Object> SNOMED_MAPPINGS = new HashMap<>();
+    private static final LongDictionary<EntityProxy.Concept> LANGUAGE_CONCEPTS = new LongDictionary<>();
+    private static final LongDictionary<EntityProxy.Pattern> DIALECT_PATTERNS = new LongDictionary<>();
+    private static volatile UUID dictionaryNamespace;
+    private static volatile LongDictionary<EntityProxy.Concept> metadataConcepts = new LongDictionary<>();
+    private static volatile LongDictionary<Long> epochTimes = new LongDictionary<>();
 
     static {
         // language
-        SNOMED_MAPPINGS.put("en", TinkarTerm.ENGLISH_LANGUAGE);
-        SNOMED_MAPPINGS.put("es", TinkarTerm.SPANISH_LANGUAGE);
-        SNOMED_MAPPINGS.put("900000000000509007", TinkarTerm.US_DIALECT_PATTERN);
-        SNOMED_MAPPINGS.put("900000000000508004", TinkarTerm.GB_DIALECT_PATTERN);
+        LANGUAGE_CONCEPTS.put(languageKey("en"), TinkarTerm.ENGLISH_LANGUAGE);
+        LANGUAGE_CONCEPTS.put(languageKey("es"), TinkarTerm.SPANISH_LANGUAGE);
+        DIALECT_PATTERNS.put(900000000000509007L, TinkarTerm.US_DIALECT_PATTERN);
+        DIALECT_PATTERNS.put(900000000000508004L, TinkarTerm.GB_DIALECT_PATTERN);
     }
 
-    private static <T> T getMapping(String code, Class<T> expectedType) {
-        Object value = SNOMED_MAPPINGS.get(code);
-        if(value == null) {
-            throw new RuntimeException("Unrecognized Code: " + code);
+    /**
+     * packs an ASCII language code such as "en" into a dictionary key
+     */
+    private static long languageKey(CharSequence languageCode) {
+        if (languageCode.length() > 8) {
+            throw new RuntimeException("Unrecognized Code: " + languageCode);
         }
-        return expectedType.cast(value);
+        long key = 0;
+        for (int i = 0; i < languageCode.length(); i++) {
+            key = (key << 8) | (languageCode.charAt(i) & 0xFF);
+        }
+        return key;
     }
+
     /**
      * transforms languageCode in concept
      * @param languageCode String representation of english or spanish
      * @return language concept
      */
-    public static EntityProxy.Concept getLanguageConcept(String languageCode){
-        return getMapping(languageCode, EntityProxy.Concept.class);
+    public static EntityProxy.Concept getLanguageConcept(CharSequence languageCode){
+        EntityProxy.Concept languageConcept = LANGUAGE_CONCEPTS.get(languageKey(languageCode));
+        if (languageConcept == null) {
+            throw new RuntimeException("Unrecognized Code: " + languageCode);
+        }
+        return languageConcept;
+    }
+
+    /**
+     * assigns dialect pattern to TinkarTerm depending on dialectRefSetId
+     * @param dialectRefsetId GB or US dialect semantic
+     * @return dialect pattern
+     */
+    public static EntityProxy.Pattern getDialectPattern(long dialectRefsetId) {
+        EntityProxy.Pattern dialectPattern = DIALECT_PATTERNS.get(dialectRefsetId);
+        if (dialectPattern == null) {
+            throw new RuntimeException("Unrecognized Code: " + dialectRefsetId);
+        }
+        return dialectPattern;
     }
 
     /**
@@ -39,6 +67,51 @@ public class TransformationHelper {
      * @return dialect pattern
      */
     public static EntityProxy.Pattern getDialectPattern(String dialectRefsetId) {
-        return getMapping(dialectRefsetId, EntityProxy.Pattern.class);
+        try {
+            return getDialectPattern(Long.parseLong(dialectRefsetId));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Unrecognized Code: " + dialectRefsetId);
+        }
+    }
+
+    /**
+     * starts a new set of dictionaries for the low cardinality columns of a transformation run
+     * @param namespace namespace the run generates UUIDs in
+     */
+    public static void initializeDictionaries(UUID namespace) {
+        dictionaryNamespace = namespace;
+        metadataConcepts = new LongDictionary<>();
+        epochTimes = new LongDictionary<>();
+    }
+
+    /**
+     * resolves a concept for columns with few distinct values, such as moduleId, typeId, caseSignificanceId
+     * and acceptabilityId, making each proxy only once per run
+     * @param namespace namespace of the run
+     * @param sctid concept identifier
+     * @return interned concept proxy
+     */
+    public static EntityProxy.Concept getMetadataConcept(UUID namespace, long sctid) {
+        if (!namespace.equals(dictionaryNamespace)) {
+            return EntityProxy.Concept.make(PublicIds.of(SnomedUtility.generateUUID(namespace, sctid)));
+        }
+        return metadataConcepts.computeIfAbsent(sctid,
+                id -> EntityProxy.Concept.make(PublicIds.of(SnomedUtility.generateUUID(namespace, id))));
+    }
+
+    /**
+     * converts an effectiveTime to an epoch, parsing each distinct date only once per run
+     * @param effectiveTime date in yyyyMMdd format
+     * @return epoch time of the date
+     */
+    public static long getEpochTime(int effectiveTime) {
+        return epochTimes.computeIfAbsent(effectiveTime, time -> SnomedUtility.snomedTimestampToEpochSeconds((int) time));
+    }
+
+    /**
+     * @return summary of the distinct values resolved by the dictionaries of the current run
+     */
+    public static String dictionarySummary() {
+        return "Metadata dictionary: " + metadataConcepts.size() + " concepts, " + epochTimes.size() + " effective times";
     }
 }
@@ -0,0 +1,357 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.composer.Composer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the throughput and memory metrics of a transformation run: how long each stage took and, for every
+ * RF2 file, the rows read by status, bytes read, sessions opened, commit latency, allocation and GC pauses while its
+ * transformer ran. The metrics are written as a JSON report at the end of the run, so runs of different releases and
+ * pipeline versions can be compared. Allocation is counted on the thread running the transformer only, so the rows
+ * parsed on the reader's fork-join pool and the sessions committed by the commit workers are not in it, hence the
+ * threadAllocatedBytes name in the report. GC pauses are process wide, so files transformed in parallel share them.
+ * The UUIDs generated and the peak heap usage are only reported for the run as a whole.
+ */
+public class TransformationMetrics {
+    private static final Logger LOG = LoggerFactory.getLogger(TransformationMetrics.class.getSimpleName());
+
+    private final long runStart = System.currentTimeMillis();
+    private final Map<String, Long> stages = new LinkedHashMap<>();
+    private final Map<Path, FileMetrics> files = new LinkedHashMap<>();
+    private final LongAdder generatedUuids = new LongAdder();
+
+    /**
+     * Starts the metrics of a run, resetting the peak heap usage the report's peak is measured from and counting the
+     * UUIDs generated until {@link #writeReport} is called
+     */
+    public TransformationMetrics() {
+        SnomedUtility.countGeneratedUuids(generatedUuids);
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    /**
+     * Records the duration of a stage of the run, such as staging the files or registering nids
+     * @param name name of the stage in the report
+     * @param startMillis time the stage started at
+     */
+    public synchronized void stage(String name, long startMillis) {
+        stages.merge(name, System.currentTimeMillis() - startMillis, Long::sum);
+    }
+
+    /**
+     * Runs the transformer of a file on the calling thread and records its metrics
+     * @param file RF2 file
+     * @param transformer transformer matching the file
+     * @param composer composer the file is transformed into
+     */
+    public void measure(Path file, Transformer transformer, Composer composer) {
+        FileMetrics metrics = fileMetrics(file);
+        metrics.transformer = transformer.type().getSimpleName();
+        metrics.start();
+        try {
+            transformer.transform(file, composer);
+        } finally {
+            metrics.finish();
+            LOG.info(file.getFileName() + ": " + metrics);
+        }
+    }
+
+    /**
+     * @param file RF2 file the reader reads, before it is sorted
+     * @param reader reader whose rows are counted for the file
+     */
+    void track(Path file, Rf2Reader reader) {
+        FileMetrics metrics = fileMetrics(file);
+        synchronized (metrics) {
+            metrics.readers.add(reader);
+        }
+    }
+
+    /**
+     * @param file RF2 file the sessions are opened for
+     * @param sessions session pool whose sessions and commits are counted for the file
+     */
+    void track(Path file, SessionPool sessions) {
+        FileMetrics metrics = fileMetrics(file);
+        synchronized (metrics) {
+            metrics.sessionPools.add(sessions);
+        }
+    }
+
+    private synchronized FileMetrics fileMetrics(Path file) {
+        return files.computeIfAbsent(file, FileMetrics::new);
+    }
+
+    /**
+     * Writes the report, replacing the report of an earlier run, and stops counting UUIDs
+     * @param report JSON file to write
+     * @param uuidCache SCTID UUID cache of the run, or null if there is none
+     */
+    public synchronized void writeReport(Path report, SctidUuidCache uuidCache) {
+        SnomedUtility.countGeneratedUuids(null);
+        Json json = new Json();
+        json.open();
+        json.field("started", Instant.ofEpochMilli(runStart).toString());
+        json.field("elapsedMs", System.currentTimeMillis() - runStart);
+        json.field("peakHeapBytes", peakHeap());
+        json.field("uuidsGenerated", generatedUuids.sum());
+        if (uuidCache != null) {
+            long lookups = uuidCache.hits() + uuidCache.misses();
+            json.name("uuidCache").open();
+            json.field("entries", uuidCache.size());
+            json.field("hits", uuidCache.hits());
+            json.field("misses", uuidCache.misses());
+            json.field("hitRate", lookups == 0 ? 0.0 : (double) uuidCache.hits() / lookups);
+            json.close();
+        }
+        json.name("stagesMs").open();
+        stages.forEach(json::field);
+        json.close();
+        json.name("files").openArray();
+        for (FileMetrics metrics : files.values()) {
+            metrics.write(json);
+        }
+        json.closeArray();
+        json.close();
+
+        try {
+            Files.createDirectories(report.toAbsolutePath().getParent());
+            Path temporaryFile = report.resolveSibling(report.getFileName() + ".tmp");
+            Files.writeString(temporaryFile, json.toString());
+            Files.move(temporaryFile, report, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        LOG.info("Wrote transformation metrics of " + files.size() + " files to " + report);
+    }
+
+    /**
+     * Metrics of one RF2 file. Counters are read from the file's readers and session pools once the transformer
+     * has finished; the JVM counters are deltas between start and finish on the transforming thread.
+     */
+    private static final class FileMetrics {
+        private final Path file;
+        private final List<Rf2Reader> readers = new ArrayList<>();
+        private final List<SessionPool> sessionPools = new ArrayList<>();
+        private String transformer;
+        private long startNanos;
+        private long elapsedNanos;
+        private long startAllocatedBytes;
+        private long allocatedBytes = -1;
+        private long startGcCount;
+        private long gcCount;
+        private long startGcMillis;
+        private long gcMillis;
+
+        FileMetrics(Path file) {
+            this.file = file;
+        }
+
+        void start() {
+            startAllocatedBytes = allocatedBytes();
+            startGcCount = gcCount();
+            startGcMillis = gcMillis();
+            startNanos = System.nanoTime();
+        }
+
+        synchronized void finish() {
+            elapsedNanos = System.nanoTime() - startNanos;
+            long endAllocatedBytes = allocatedBytes();
+            allocatedBytes = startAllocatedBytes < 0 || endAllocatedBytes < 0 ? -1 : endAllocatedBytes - startAllocatedBytes;
+            gcCount = gcCount() - startGcCount;
+            gcMillis = gcMillis() - startGcMillis;
+        }
+
+        synchronized void write(Json json) {
+            long rows = readers.stream().mapToLong(Rf2Reader::getRowCount).sum();
+            long activeRows = readers.stream().mapToLong(Rf2Reader::getActiveRowCount).sum();
+            double seconds = elapsedNanos / 1e9;
+            json.open();
+            json.field("file", file.getFileName().toString());
+            json.field("transformer", transformer);
+            json.field("elapsedMs", elapsedNanos / 1_000_000);
+            json.field("rows", rows);
+            json.field("activeRows", activeRows);
+            json.field("inactiveRows", rows - activeRows);
+            json.field("filteredRows", readers.stream().mapToLong(Rf2Reader::getFilteredRowCount).sum());
+            json.field("rowsPerSecond", seconds == 0 ? 0.0 : rows / seconds);
+            json.field("bytesRead", readers.stream().mapToLong(Rf2Reader::getByteCount).sum());
+            json.field("sessionsRequested", sessionPools.stream().mapToLong(SessionPool::getRequestCount).sum());
+            json.field("sessionsOpened", sessionPools.stream().mapToLong(SessionPool::getSessionCount).sum());
+            json.field("commits", sessionPools.stream().mapToLong(SessionPool::getCommitCount).sum());
+            json.field("commitMs", sessionPools.stream().mapToLong(SessionPool::getCommitNanos).sum() / 1_000_000);
+            json.field("maxCommitMs", sessionPools.stream().mapToLong(SessionPool::getMaxCommitNanos).max().orElse(0) / 1_000_000);
+            json.field("threadAllocatedBytes", allocatedBytes);
+            json.field("threadAllocatedBytesPerSecond", allocatedBytes < 0 || seconds == 0 ? 0.0 : allocatedBytes / seconds);
+            json.field("gcCount", gcCount);
+            json.field("gcPauseMs", gcMillis);
+            json.close();
+        }
+
+        @Override
+        public synchronized String toString() {
+            long rows = readers.stream().mapToLong(Rf2Reader::getRowCount).sum();
+            return String.format(Locale.ROOT, "%d rows in %d ms (%.0f rows/s), %d MB allocated by the transforming thread, %d GCs taking %d ms",
+                    rows, elapsedNanos / 1_000_000, elapsedNanos == 0 ? 0.0 : rows * 1e9 / elapsedNanos,
+                    Math.max(0, allocatedBytes) / (1024 * 1024), gcCount, gcMillis);
+        }
+    }
+
+    /**
+     * @return bytes allocated by the calling thread so far, or -1 if the JVM does not measure it
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean allocationThreads && allocationThreads.isThreadAllocatedMemoryEnabled()) {
+            return allocationThreads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+                .filter(count -> count > 0)
+                .sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .filter(time -> time > 0)
+                .sum();
+    }
+
+    private static long peakHeap() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+    }
+
+    /**
+     * Minimal JSON writer for the report, which only holds objects, arrays, strings and numbers
+     */
+    static final class Json {
+        private final StringBuilder text = new StringBuilder();
+        private boolean first = true;
+        private boolean named;
+        private int depth;
+
+        Json name(String name) {
+            separate();
+            string(name);
+            text.append(": ");
+            named = true;
+            return this;
+        }
+
+        void open() {
+            begin('{');
+        }
+
+        void close() {
+            end('}');
+        }
+
+        void openArray() {
+            begin('[');
+        }
+
+        void closeArray() {
+            end(']');
+        }
+
+        void field(String name, String value) {
+            name(name);
+            if (value == null) {
+                text.append("null");
+            } else {
+                string(value);
+            }
+            named = false;
+        }
+
+        void field(String name, long value) {
+            name(name);
+            text.append(value);
+            named = false;
+        }
+
+        /**
+         * JSON has no NaN or infinity, so those are written as null
+         */
+        void field(String name, double value) {
+            name(name);
+            text.append(Double.isFinite(value) ? String.format(Locale.ROOT, "%.3f", value) : "null");
+            named = false;
+        }
+
+        private void begin(char bracket) {
+            if (!named && depth > 0) {
+                separate();
+            }
+            text.append(bracket);
+            named = false;
+            first = true;
+            depth++;
+        }
+
+        private void end(char bracket) {
+            depth--;
+            text.append('\n').append("  ".repeat(depth)).append(bracket);
+            first = false;
+        }
+
+        private void separate() {
+            text.append(first ? "" : ",").append('\n').append("  ".repeat(depth));
+            first = false;
+        }
+
+        private void string(String value) {
+            text.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> text.append("\\\"");
+                    case '\\' -> text.append("\\\\");
+                    case '\n' -> text.append("\\n");
+                    case '\t' -> text.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            text.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            text.append(c);
+                        }
+                    }
+                }
+            }
+            text.append('"');
+        }
+
+        @Override
+        public String toString() {
+            return text + "\n";
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.composer.Composer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the transformers for a set of RF2 files concurrently on a fixed pool of workers.
+ * Each file is composed into its own Composer, since files are composed on several threads at once, and a file
+ * only starts once the files of the transformers it depends on have finished. A run whose dependencies form a cycle
+ * fails before any file starts. Transformers may commit along the way according to their commit policy; whatever is
+ * still pending is committed once every file has been transformed, one file's composer after another with the files
+ * a file depends on first. Unlike a sequential run into one composer, the run therefore ends in one commit per file
+ * rather than a single commit.
+ */
+public class TransformationScheduler {
+    private static final Logger LOG = LoggerFactory.getLogger(TransformationScheduler.class.getSimpleName());
+
+    private final int workerCount;
+    private final Map<Path, Transformer> transformersByFile = new LinkedHashMap<>();
+    private final TransformationMetrics metrics;
+
+    public TransformationScheduler(int workerCount) {
+        this(workerCount, null);
+    }
+
+    /**
+     * @param workerCount number of files transformed at the same time
+     * @param metrics metrics of the run every transformer is measured in, or null
+     */
+    public TransformationScheduler(int workerCount, TransformationMetrics metrics) {
+        this.workerCount = workerCount;
+        this.metrics = metrics;
+    }
+
+    /**
+     * adds a file to be transformed in the next run
+     * @param file RF2 file
+     * @param transformer transformer matching the file
+     */
+    public void schedule(Path file, Transformer transformer) {
+        transformersByFile.put(file, transformer);
+    }
+
+    /**
+     * Transforms all scheduled files and commits the sessions of every file once all of them have finished, in
+     * dependency order
+     * @throws IllegalStateException if the scheduled files depend on each other in a cycle
+     */
+    public void run() {
+        checkForCycles();
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        try {
+            Map<Path, Composer> composers = new LinkedHashMap<>();
+            Map<Path, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+            transformersByFile.forEach((file, transformer) ->
+                    composers.put(file, new Composer("Snomed Transformer Composer " + file.getFileName())));
+            transformersByFile.keySet().forEach(file -> submit(file, composers, futures, executor));
+
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).join();
+
+            LOG.info("### Committing sessions for " + composers.size() + " files");
+            // a file's future is added after those of the files it depends on
+            futures.keySet().forEach(file -> composers.get(file).commitAllSessions());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Fails if a file depends, directly or through other files, on itself, which would otherwise leave the run
+     * waiting forever or recursing until the stack overflows
+     */
+    private void checkForCycles() {
+        Set<Path> done = new HashSet<>();
+        for (Path file : transformersByFile.keySet()) {
+            checkForCycles(file, new LinkedHashSet<>(), done);
+        }
+    }
+
+    private void checkForCycles(Path file, LinkedHashSet<Path> path, Set<Path> done) {
+        if (done.contains(file)) {
+            return;
+        }
+        if (!path.add(file)) {
+            List<Path> cycle = new ArrayList<>(path);
+            throw new IllegalStateException("Transformer dependencies form a cycle: " + cycle.subList(cycle.indexOf(file), cycle.size()).stream()
+                    .map(cycleFile -> transformersByFile.get(cycleFile).type().getSimpleName() + " (" + cycleFile.getFileName() + ")")
+                    .collect(Collectors.joining(" -> ")) + " -> " + transformersByFile.get(file).type().getSimpleName());
+        }
+        Transformer transformer = transformersByFile.get(file);
+        transformersByFile.forEach((otherFile, otherTransformer) -> {
+            if (transformer.dependencies().contains(otherTransformer.type())) {
+                checkForCycles(otherFile, path, done);
+            }
+        });
+        path.remove(file);
+        done.add(file);
+    }
+
+    private CompletableFuture<Void> submit(Path file, Map<Path, Composer> composers,
+                                           Map<Path, CompletableFuture<Void>> futures, ExecutorService executor) {
+        CompletableFuture<Void> future = futures.get(file);
+        if (future != null) {
+            return future;
+        }
+        Transformer transformer = transformersByFile.get(file);
+        List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+        transformersByFile.forEach((otherFile, otherTransformer) -> {
+            if (transformer.dependencies().contains(otherTransformer.type())) {
+                dependencies.add(submit(otherFile, composers, futures, executor));
+            }
+        });
+        future = CompletableFuture.allOf(dependencies.toArray(CompletableFuture[]::new))
+                .thenRunAsync(() -> {
+                    LOG.info("### Transformer Starting for file: " + file.getFileName());
+                    if (metrics != null) {
+                        metrics.measure(file, transformer, composers.get(file));
+                    } else {
+                        transformer.transform(file, composers.get(file));
+                    }
+                    LOG.info("### Transformer Finishing for file : " + file.getFileName());
+                }, executor);
+        futures.put(file, future);
+        return future;
+    }
+}
@@ -1,10 +1,26 @@
 package dev.ikm.maven;
 
 import dev.ikm.tinkar.composer.Composer;
-import java.io.File;
+import java.nio.file.Path;
+import java.util.Set;
 import java.util.UUID;
 
 public interface Transformer {
-    void transform(File file, Composer composer);
+    void transform(Path file, Composer composer);
     UUID getNamespace();
+
+    /**
+     * Transformers that must have finished before this one may start when files are scheduled in parallel
+     * @return transformer types this transformer depends on
+     */
+    default Set<Class<?>> dependencies() {
+        return Set.of();
+    }
+
+    /**
+     * @return type other transformers name in their dependencies to wait for this one
+     */
+    default Class<?> type() {
+        return getClass();
+    }
 }
@@ -0,0 +1,47 @@
+package dev.ikm.maven;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AxiomSyntaxTransformerTest {
+
+    @Test
+    void classAxioms() {
+        assertFalse(AxiomSyntaxTransformer.isPropertyAxiom("SubClassOf(:73211009 :362969004)"));
+        assertFalse(AxiomSyntaxTransformer.isPropertyAxiom("EquivalentClasses(:10001005 ObjectIntersectionOf(:64572001 "
+                + "ObjectSomeValuesFrom(:609096000 ObjectSomeValuesFrom(:363698007 :39057004))))"));
+        assertFalse(AxiomSyntaxTransformer.isPropertyAxiom("SubClassOf(:1142135004 DataHasValue(:1142139005 \"1\"^^xsd:integer))"));
+    }
+
+    @Test
+    void propertyAxioms() {
+        assertTrue(AxiomSyntaxTransformer.isPropertyAxiom("SubObjectPropertyOf(:127489000 :762705008)"));
+        assertTrue(AxiomSyntaxTransformer.isPropertyAxiom("SubObjectPropertyOf(ObjectPropertyChain(:246093002 :738774007) :246093002)"));
+        assertTrue(AxiomSyntaxTransformer.isPropertyAxiom("TransitiveObjectProperty(:774081006)"));
+        assertTrue(AxiomSyntaxTransformer.isPropertyAxiom("SubDataPropertyOf(:1142139005 :762706009)"));
+    }
+
+    @Test
+    void axiomTypeIsReadPastPrefixesAndOntology() {
+        assertTrue(AxiomSyntaxTransformer.isPropertyAxiom("Prefix(:=<http://snomed.info/id/>) "
+                + "Ontology(<http://snomed.info/sct/900000000000207008>) SubObjectPropertyOf(:127489000 :762705008)"));
+        assertFalse(AxiomSyntaxTransformer.isPropertyAxiom("Prefix(:=<http://snomed.info/id/>) Prefix(xsd:=<http://www.w3.org/2001/XMLSchema#>) "
+                + "Ontology(<http://snomed.info/sct/900000000000207008> <http://snomed.info/sct/900000000000207008/version/20240101>) "
+                + "SubClassOf(:73211009 ObjectSomeValuesFrom(:609096000 ObjectSomeValuesFrom(:363698007 :39057004)))"));
+    }
+
+    @Test
+    void classAxiomNamingAPropertyIsStillAClassAxiom() {
+        // the old test for the word Property in the expression took this for a property axiom
+        assertFalse(AxiomSyntaxTransformer.isPropertyAxiom("SubClassOf(<http://example.org/ObjectPropertyConcept> :138875005)"));
+    }
+
+    @Test
+    void expressionsWithoutAnAxiom() {
+        assertFalse(AxiomSyntaxTransformer.isPropertyAxiom(""));
+        assertFalse(AxiomSyntaxTransformer.isPropertyAxiom("Prefix(:=<http://snomed.info/id/>)"));
+        assertFalse(AxiomSyntaxTransformer.isPropertyAxiom("Ontology(<http://snomed.info/sct/900000000000207008>"));
+    }
+}
@@ -0,0 +1,33 @@
+package dev.ikm.maven;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommitPolicyTest {
+
+    @Test
+    void rowAndByteLimits() {
+        CommitPolicy policy = new CommitPolicy(10, 1000, 0);
+
+        assertFalse(policy.isCommitDue(9, 999, -1));
+        assertTrue(policy.isCommitDue(10, 0, -1));
+        assertTrue(policy.isCommitDue(1, 1000, -1));
+        assertFalse(CommitPolicy.AT_END.isCommitDue(Long.MAX_VALUE, Long.MAX_VALUE, -1));
+    }
+
+    @Test
+    void heapOverBudgetIsDueOncePerCollection() {
+        System.gc();
+        long heap = CommitPolicy.heapAfterCollection();
+        CommitPolicy policy = new CommitPolicy(0, 0, 1);
+
+        assertTrue(heap > 1, "live objects are left in the old generation after a full collection");
+        assertTrue(policy.isCommitDue(4096, 0, -1));
+        // the sessions were committed on this measurement, so it has to be measured again first
+        assertFalse(policy.isCommitDue(4096, 0, heap));
+        // the heap is only checked every 4096 rows
+        assertFalse(policy.isCommitDue(4097, 0, -1));
+    }
+}
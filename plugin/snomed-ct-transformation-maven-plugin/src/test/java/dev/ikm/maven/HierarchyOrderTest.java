@@ -0,0 +1,115 @@
+package dev.ikm.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchyOrderTest {
+    private static final String CONCEPT_HEADER = "id\teffectiveTime\tactive\tmoduleId\tdefinitionStatusId";
+    private static final String RELATIONSHIP_HEADER = "id\teffectiveTime\tactive\tmoduleId\tsourceId\tdestinationId\trelationshipGroup\ttypeId\tcharacteristicTypeId\tmodifierId";
+    private static final String AXIOM_HEADER = "id\teffectiveTime\tactive\tmoduleId\trefsetId\treferencedComponentId\towlExpression";
+    private static final String IS_A = "116680003";
+    private static final String FINDING_SITE = "363698007";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void conceptsAreRankedBreadthFirstWithSiblingsBySctid() throws IOException {
+        //        10
+        //      /    \
+        //    40      20
+        //    |      /  \
+        //    50   60    30
+        Path concepts = concepts(10, 20, 30, 40, 50, 60, 70);
+        Path relationships = write("sct2_Relationship_Full_INT_20240101.txt", RELATIONSHIP_HEADER,
+                relationship(1, 40, 10, IS_A, "1"),
+                relationship(2, 20, 10, IS_A, "1"),
+                relationship(3, 60, 20, IS_A, "1"),
+                relationship(4, 30, 20, IS_A, "1"),
+                relationship(5, 50, 40, IS_A, "1"),
+                relationship(6, 50, 30, FINDING_SITE, "1"),
+                relationship(7, 70, 60, IS_A, "0"));
+
+        Map<Long, Integer> ranks = HierarchyOrder.conceptRanks(List.of(concepts, relationships));
+
+        // 70 has no active parent, so it follows the hierarchy
+        assertEquals(List.of(10L, 20L, 40L, 30L, 60L, 50L, 70L), byRank(ranks));
+    }
+
+    @Test
+    void axiomsAreUsedWithoutRelationshipFile() throws IOException {
+        Path concepts = concepts(10, 20, 30, 40);
+        Path axioms = write("sct2_sRefset_OWLExpressionFull_INT_20240101.txt", AXIOM_HEADER,
+                axiom(1, 20, "SubClassOf(:20 :10)"),
+                axiom(2, 30, "EquivalentClasses(:30 ObjectIntersectionOf(:10 ObjectSomeValuesFrom(:609096000 ObjectSomeValuesFrom(:363698007 :40))))"),
+                axiom(3, 40, "SubClassOf(:40 :30)"));
+
+        Map<Long, Integer> ranks = HierarchyOrder.conceptRanks(List.of(concepts, axioms));
+
+        assertEquals(List.of(10L, 20L, 30L, 40L), byRank(ranks));
+    }
+
+    @Test
+    void namedParentsOfSubClassAxiom() {
+        assertEquals(List.of(10L), HierarchyOrder.namedParents("SubClassOf(:20 :10)", 20));
+        assertEquals(List.of(10L, 11L), HierarchyOrder.namedParents(
+                "SubClassOf(:20 ObjectIntersectionOf(:10 :11 ObjectSomeValuesFrom(:609096000 ObjectSomeValuesFrom(:363698007 :40))))", 20));
+    }
+
+    @Test
+    void namedParentsOfEquivalentClassesAxiom() {
+        assertEquals(List.of(10L), HierarchyOrder.namedParents(
+                "EquivalentClasses(:30 ObjectIntersectionOf(:10 ObjectSomeValuesFrom(:363698007 :40)))", 30));
+    }
+
+    @Test
+    void roleFillersAndOtherAxiomsHaveNoNamedParents() {
+        assertTrue(HierarchyOrder.namedParents("SubClassOf(:20 ObjectSomeValuesFrom(:363698007 :40))", 20).isEmpty());
+        // a general concept inclusion, whose subject is not the concept
+        assertTrue(HierarchyOrder.namedParents("SubClassOf(ObjectIntersectionOf(:20 :50) :10)", 20).isEmpty());
+        assertTrue(HierarchyOrder.namedParents("SubObjectPropertyOf(:20 :762705008)", 20).isEmpty());
+        // the SCTID of another concept that starts with the concept's SCTID
+        assertTrue(HierarchyOrder.namedParents("SubClassOf(:201 :10)", 20).isEmpty());
+    }
+
+    private static List<Long> byRank(Map<Long, Integer> ranks) {
+        List<Long> concepts = new ArrayList<>(ranks.keySet());
+        concepts.sort(Comparator.comparing(ranks::get));
+        return concepts;
+    }
+
+    private Path concepts(long... ids) throws IOException {
+        String[] rows = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            rows[i] = ids[i] + "\t20240101\t1\t900000000000207008\t900000000000074008";
+        }
+        return write("sct2_Concept_Full_INT_20240101.txt", CONCEPT_HEADER, rows);
+    }
+
+    private static String relationship(long id, long sourceId, long destinationId, String typeId, String active) {
+        return id + "\t20240101\t" + active + "\t900000000000207008\t" + sourceId + "\t" + destinationId + "\t0\t" + typeId
+                + "\t900000000000011006\t900000000000451002";
+    }
+
+    private static String axiom(int id, long conceptId, String owlExpression) {
+        return "00000000-0000-0000-0000-00000000000" + id + "\t20240101\t1\t900000000000207008\t733073007\t" + conceptId + "\t" + owlExpression;
+    }
+
+    private Path write(String fileName, String header, String... rows) throws IOException {
+        Path file = directory.resolve(fileName);
+        Files.writeString(file, header + "\r\n" + String.join("\r\n", rows) + "\r\n", StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,53 @@
+package dev.ikm.maven;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LongDictionaryTest {
+
+    @Test
+    void missingKeyIsNull() {
+        LongDictionary<String> dictionary = new LongDictionary<>();
+
+        assertNull(dictionary.get(900000000000207008L));
+        assertEquals(0, dictionary.size());
+    }
+
+    @Test
+    void valuesSurviveTheTableGrowing() {
+        LongDictionary<String> dictionary = new LongDictionary<>();
+        LongStream.range(0, 1000).forEach(key -> dictionary.put(key * 1_000_003, "value " + key));
+
+        assertEquals(1000, dictionary.size());
+        LongStream.range(0, 1000).forEach(key -> assertEquals("value " + key, dictionary.get(key * 1_000_003)));
+    }
+
+    @Test
+    void putReplacesTheValueOfAKey() {
+        LongDictionary<String> dictionary = new LongDictionary<>();
+        dictionary.put(-1, "first");
+        dictionary.put(-1, "second");
+
+        assertEquals("second", dictionary.get(-1));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    void computeIfAbsentCreatesEachValueOnce() {
+        LongDictionary<Long> dictionary = new LongDictionary<>();
+        AtomicInteger created = new AtomicInteger();
+        LongStream.range(0, 20_000).parallel().forEach(i -> dictionary.computeIfAbsent(i % 50, key -> {
+            created.incrementAndGet();
+            return key * 2;
+        }));
+
+        assertEquals(50, created.get());
+        assertEquals(50, dictionary.size());
+        assertEquals(Long.valueOf(98), dictionary.get(49));
+    }
+}
@@ -0,0 +1,67 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.common.id.PublicIds;
+import dev.ikm.tinkar.common.util.uuid.UuidT5Generator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OwlAxiomRewriterTest {
+    private static final UUID NAMESPACE = UUID.fromString("48b004d4-6457-4648-8d58-e3287126d96b");
+    private static final Pattern FULL_IRI = Pattern.compile("<[^>]+>");
+    private static final Pattern SCTID = Pattern.compile("(?<=:)([0-9]+)");
+
+    private static final List<String> EXPRESSIONS = List.of(
+            "SubClassOf(:73211009 :362969004)",
+            "EquivalentClasses(:10001005 ObjectIntersectionOf(:64572001 ObjectSomeValuesFrom(:609096000 "
+                    + "ObjectSomeValuesFrom(:363698007 :39057004))))",
+            "Prefix(:=<http://snomed.info/id/>) Ontology(<http://snomed.info/sct/900000000000207008>) "
+                    + "SubObjectPropertyOf(:127489000 :762705008)",
+            "SubClassOf(:1142135004 DataHasValue(:1142139005 \"1\"^^xsd:integer))",
+            "SubObjectPropertyOf(ObjectPropertyChain(:246093002 :738774007) :246093002)",
+            "SubClassOf(:0123 :12345678901234567890 :)",
+            "SubClassOf(<http://snomed.info/id/73211009> :12:34)",
+            "");
+
+    @Test
+    void rewritesLikeTheRegularExpressionsItReplaced() {
+        OwlAxiomRewriter rewriter = new OwlAxiomRewriter(NAMESPACE);
+        for (String expression : EXPRESSIONS) {
+            assertEquals(regexRewrite(expression), rewriter.rewrite(expression), expression);
+        }
+    }
+
+    @Test
+    void reusedRewriterKeepsNoStateBetweenExpressions() {
+        OwlAxiomRewriter rewriter = new OwlAxiomRewriter(NAMESPACE);
+        // the first expression ends inside an SCTID, the second starts with digits that follow no colon
+        rewriter.rewrite("SubClassOf(:73211009 :362969004");
+        assertEquals(regexRewrite("123 :456)"), rewriter.rewrite("123 :456)"));
+    }
+
+    @Test
+    void sctidsBecomeThePublicIdsOfTheirUuids() {
+        String rewritten = new OwlAxiomRewriter(NAMESPACE).rewrite("SubClassOf(:73211009 :362969004)");
+
+        String conceptUuid = SnomedUtility.generateUUID(NAMESPACE, 73211009L).toString();
+        assertTrue(rewritten.contains(conceptUuid), rewritten);
+        assertTrue(rewritten.startsWith("SubClassOf(:"), rewritten);
+    }
+
+    /**
+     * The two replaceAll passes owlAxiomIdsToPublicIds made before the rewriter
+     */
+    private static String regexRewrite(String owlExpression) {
+        String iris = FULL_IRI.matcher(owlExpression).replaceAll(iri -> {
+            String iriString = iri.group().substring(1, iri.group().length() - 1);
+            return "<" + PublicIds.of(UuidT5Generator.get(NAMESPACE, iriString)).toString().replaceAll("\"", "") + ">";
+        });
+        return SCTID.matcher(iris).replaceAll(id ->
+                PublicIds.of(SnomedUtility.generateUUID(NAMESPACE, id.group())).toString().replaceAll("\"", ""));
+    }
+}
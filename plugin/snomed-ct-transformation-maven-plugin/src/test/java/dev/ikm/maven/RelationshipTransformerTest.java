@@ -0,0 +1,139 @@
+package dev.ikm.maven;
+
+import dev.ikm.maven.RelationshipTransformer.Definition;
+import dev.ikm.maven.RelationshipTransformer.DefinitionStatus;
+import dev.ikm.maven.RelationshipTransformer.InferredConcept;
+import dev.ikm.maven.RelationshipTransformer.InferredVersion;
+import dev.ikm.maven.RelationshipTransformer.Navigation;
+import dev.ikm.maven.RelationshipTransformer.Role;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RelationshipTransformerTest {
+    private static final String HEADER = "id\teffectiveTime\tactive\tmoduleId\tsourceId\tdestinationId\trelationshipGroup\ttypeId\tcharacteristicTypeId\tmodifierId";
+    private static final String INFERRED = "900000000000011006";
+    private static final String STATED = "900000000000010007";
+    private static final String ADDITIONAL = "900000000000227009";
+    private static final long MODULE = 900000000000207008L;
+    private static final long IS_A = 116680003L;
+    private static final long FINDING_SITE = 363698007L;
+    private static final long CHILD = 100000001L;
+    private static final long PARENT = 100000002L;
+    private static final long SITE = 100000003L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void relationshipsThatAreNeverInferredAreLeftOut() throws IOException {
+        Path file = write(
+                row(201, "20200131", "1", CHILD, PARENT, IS_A, STATED),
+                row(202, "20200131", "1", CHILD, PARENT, IS_A, ADDITIONAL));
+
+        assertTrue(RelationshipTransformer.inferredConcepts(new Rf2Reader(file)).isEmpty());
+    }
+
+    @Test
+    void axiomsGetAVersionWheneverTheInferredRolesChange() throws IOException {
+        Path file = write(
+                row(201, "20200131", "1", CHILD, PARENT, IS_A, INFERRED),
+                row(201, "20240101", "0", CHILD, PARENT, IS_A, INFERRED),
+                row(202, "20220131", "1", CHILD, SITE, FINDING_SITE, INFERRED),
+                // a release that only moves a relationship to another module leaves the axioms as they were
+                row(202, "20230131", "1", CHILD, SITE, FINDING_SITE, INFERRED, 900000000000012004L));
+
+        InferredConcept child = RelationshipTransformer.inferredConcepts(new Rf2Reader(file)).get(CHILD);
+        List<InferredVersion<Definition>> versions = RelationshipTransformer.definitionVersions(CHILD, child, List.of());
+
+        Role isA = new Role(0, IS_A, PARENT);
+        Role findingSite = new Role(1, FINDING_SITE, SITE);
+        assertEquals(List.of(
+                new InferredVersion<>(true, time(20200131), MODULE, new Definition(false, Set.of(isA))),
+                new InferredVersion<>(true, time(20220131), MODULE, new Definition(false, Set.of(isA, findingSite))),
+                new InferredVersion<>(true, time(20240101), MODULE, new Definition(false, Set.of(findingSite)))), versions);
+    }
+
+    @Test
+    void relationshipThatIsNoLongerInferredRetiresTheAxioms() throws IOException {
+        Path file = write(
+                row(201, "20200131", "1", CHILD, PARENT, IS_A, INFERRED),
+                row(201, "20240101", "1", CHILD, PARENT, IS_A, ADDITIONAL));
+
+        InferredConcept child = RelationshipTransformer.inferredConcepts(new Rf2Reader(file)).get(CHILD);
+        List<InferredVersion<Definition>> versions = RelationshipTransformer.definitionVersions(CHILD, child, List.of());
+
+        Definition definition = new Definition(false, Set.of(new Role(0, IS_A, PARENT)));
+        assertEquals(List.of(
+                new InferredVersion<>(true, time(20200131), MODULE, definition),
+                new InferredVersion<>(false, time(20240101), MODULE, definition)), versions);
+    }
+
+    @Test
+    void definitionStatusChangesAreVersionsOfTheAxioms() throws IOException {
+        Path file = write(row(201, "20200131", "1", CHILD, PARENT, IS_A, INFERRED));
+
+        InferredConcept child = RelationshipTransformer.inferredConcepts(new Rf2Reader(file)).get(CHILD);
+        List<InferredVersion<Definition>> versions = RelationshipTransformer.definitionVersions(CHILD, child, List.of(
+                new DefinitionStatus(time(20190131), MODULE, false),
+                new DefinitionStatus(time(20220131), MODULE, true)));
+
+        Set<Role> roles = Set.of(new Role(0, IS_A, PARENT));
+        assertEquals(List.of(
+                new InferredVersion<>(true, time(20200131), MODULE, new Definition(false, roles)),
+                new InferredVersion<>(true, time(20220131), MODULE, new Definition(true, roles))), versions);
+    }
+
+    @Test
+    void navigationOfAParentFollowsItsChildren() throws IOException {
+        Path file = write(
+                row(201, "20200131", "1", CHILD, PARENT, IS_A, INFERRED),
+                row(201, "20240101", "0", CHILD, PARENT, IS_A, INFERRED),
+                row(202, "20220131", "1", SITE, PARENT, IS_A, INFERRED),
+                row(203, "20220131", "1", CHILD, SITE, FINDING_SITE, INFERRED));
+
+        Map<Long, InferredConcept> concepts = RelationshipTransformer.inferredConcepts(new Rf2Reader(file));
+        List<InferredVersion<Navigation>> parent = RelationshipTransformer.navigationVersions(PARENT, concepts.get(PARENT));
+        List<InferredVersion<Navigation>> child = RelationshipTransformer.navigationVersions(CHILD, concepts.get(CHILD));
+
+        assertEquals(List.of(
+                new InferredVersion<>(true, time(20200131), MODULE, new Navigation(Set.of(CHILD), Set.of())),
+                new InferredVersion<>(true, time(20220131), MODULE, new Navigation(Set.of(CHILD, SITE), Set.of())),
+                new InferredVersion<>(true, time(20240101), MODULE, new Navigation(Set.of(SITE), Set.of()))), parent);
+        assertEquals(2, child.size());
+        assertFalse(child.get(1).active());
+        assertEquals(new Navigation(Set.of(), Set.of(PARENT)), child.get(1).content());
+    }
+
+    private static long time(int effectiveTime) {
+        return TransformationHelper.getEpochTime(effectiveTime);
+    }
+
+    private static String row(long id, String effectiveTime, String active, long sourceId, long destinationId, long typeId,
+                              String characteristicTypeId) {
+        return row(id, effectiveTime, active, sourceId, destinationId, typeId, characteristicTypeId, MODULE);
+    }
+
+    private static String row(long id, String effectiveTime, String active, long sourceId, long destinationId, long typeId,
+                              String characteristicTypeId, long moduleId) {
+        return id + "\t" + effectiveTime + "\t" + active + "\t" + moduleId + "\t" + sourceId + "\t" + destinationId
+                + "\t" + (typeId == IS_A ? 0 : 1) + "\t" + typeId + "\t" + characteristicTypeId + "\t900000000000451002";
+    }
+
+    private Path write(String... rows) throws IOException {
+        Path file = directory.resolve("sct2_Relationship_Full_INT_20240101.txt");
+        Files.writeString(file, HEADER + "\r\n" + String.join("\r\n", rows) + "\r\n", StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,78 @@
+package dev.ikm.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Rf2ExtractorTest {
+    private static final String RELEASE = "SnomedCT_InternationalRF2_PRODUCTION_20240101T120000Z/";
+    private static final String CONCEPT_ROW = "100000001\t20240101\t1\t900000000000207008\t900000000000074008\r\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void snapshotLoadOfReleaseWithoutSnapshotFolderExtractsFullFiles() throws IOException {
+        Path zipFile = zip(RELEASE + "Full/Terminology/sct2_Concept_Full_INT_20240101.txt",
+                RELEASE + "Full/Refset/Language/der2_cRefset_LanguageFull-en_INT_20240101.txt");
+        Path output = directory.resolve("output");
+
+        assertEquals(LoadMode.FULL.getIncludes(), Rf2Extractor.includes(zipFile, LoadMode.SNAPSHOT));
+        assertTrue(new Rf2Extractor(zipFile, output, Rf2Extractor.includes(zipFile, LoadMode.SNAPSHOT), 2).extract());
+
+        Path terminologyFolder = SnomedTransformationMojo.searchTerminologyFolder(output, LoadMode.SNAPSHOT);
+        assertEquals(output.resolve(RELEASE + "Full/Terminology"), terminologyFolder);
+        assertTrue(Files.isRegularFile(terminologyFolder.resolve("sct2_Concept_Full_INT_20240101.txt")));
+    }
+
+    @Test
+    void snapshotLoadOfReleaseWithSnapshotFolderExtractsOnlySnapshotFiles() throws IOException {
+        Path zipFile = zip(RELEASE + "Full/Terminology/sct2_Concept_Full_INT_20240101.txt",
+                RELEASE + "Snapshot/Terminology/sct2_Concept_Snapshot_INT_20240101.txt");
+        Path output = directory.resolve("output");
+
+        assertEquals(LoadMode.SNAPSHOT.getIncludes(), Rf2Extractor.includes(zipFile, LoadMode.SNAPSHOT));
+        new Rf2Extractor(zipFile, output, Rf2Extractor.includes(zipFile, LoadMode.SNAPSHOT), 2).extract();
+
+        assertEquals(output.resolve(RELEASE + "Snapshot/Terminology"), SnomedTransformationMojo.searchTerminologyFolder(output, LoadMode.SNAPSHOT));
+        assertFalse(Files.exists(output.resolve(RELEASE + "Full")));
+    }
+
+    @Test
+    void deltaLoadHasNoFallback() throws IOException {
+        Path zipFile = zip(RELEASE + "Full/Terminology/sct2_Concept_Full_INT_20240101.txt");
+
+        assertEquals(LoadMode.DELTA.getIncludes(), Rf2Extractor.includes(zipFile, LoadMode.DELTA));
+    }
+
+    @Test
+    void secondExtractionOfSameZipIsSkipped() throws IOException {
+        Path zipFile = zip(RELEASE + "Full/Terminology/sct2_Concept_Full_INT_20240101.txt");
+        Path output = directory.resolve("output");
+
+        assertTrue(new Rf2Extractor(zipFile, output, LoadMode.FULL.getIncludes(), 1).extract());
+        assertFalse(new Rf2Extractor(zipFile, output, LoadMode.FULL.getIncludes(), 1).extract());
+    }
+
+    private Path zip(String... entryNames) throws IOException {
+        Path zipFile = directory.resolve("release.zip");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            for (String entryName : entryNames) {
+                zip.putNextEntry(new ZipEntry(entryName));
+                zip.write(("id\teffectiveTime\tactive\tmoduleId\tdefinitionStatusId\r\n" + CONCEPT_ROW).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return zipFile;
+    }
+}
@@ -0,0 +1,69 @@
+package dev.ikm.maven;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Rf2FileNameTest {
+
+    @Test
+    void coreComponentFile() {
+        Rf2FileName name = Rf2FileName.parse("sct2_Concept_Snapshot_INT_20240101.txt");
+
+        assertEquals(new Rf2FileName("sct2", "Concept", "", "Snapshot", "", "INT", "20240101"), name);
+        assertFalse(name.isRefset());
+        assertEquals("Concept", name.component());
+    }
+
+    @Test
+    void coreFileWithLanguage() {
+        Rf2FileName name = Rf2FileName.parse("sct2_Description_Full-en_INT_20240101.txt");
+
+        assertEquals("Description", name.component());
+        assertEquals("Full", name.releaseType());
+        assertEquals("en", name.languageCode());
+    }
+
+    @Test
+    void refsetFileIsNamedBySummary() {
+        Rf2FileName name = Rf2FileName.parse("der2_cRefset_LanguageDelta-en_US1000124_20240301.txt");
+
+        assertTrue(name.isRefset());
+        assertEquals("cRefset", name.contentType());
+        assertEquals("Language", name.component());
+        assertEquals("Delta", name.releaseType());
+        assertEquals("US1000124", name.countryNamespace());
+        assertEquals("20240301", name.versionDate());
+    }
+
+    @Test
+    void refsetSummaryMayItselfContainAReleaseTypeWord() {
+        Rf2FileName name = Rf2FileName.parse("der2_sRefset_OWLExpressionSnapshot_INT_20240101.txt");
+
+        assertEquals("OWLExpression", name.component());
+        assertEquals("Snapshot", name.releaseType());
+    }
+
+    @Test
+    void languageCodeWithRegion() {
+        assertEquals("en-GB", Rf2FileName.parse("der2_cRefset_LanguageSnapshot-en-GB_GB1000000_20240101.txt").languageCode());
+    }
+
+    @Test
+    void extensionFilePrefixes() {
+        assertEquals("xsct2", Rf2FileName.parse("xsct2_Concept_Full_INT_20240101.txt").fileType());
+        assertEquals("xder2", Rf2FileName.parse("xder2_Refset_SimpleFull_INT_20240101.txt").fileType());
+    }
+
+    @Test
+    void otherFilesAreNotRf2Files() {
+        assertNull(Rf2FileName.parse("Readme_en_20240101.txt"));
+        assertNull(Rf2FileName.parse("sct2_Concept_Snapshot_INT_20240101.zip"));
+        assertNull(Rf2FileName.parse("sct2_Concept_Snapshot_INT_202401.txt"));
+        assertNull(Rf2FileName.parse("sct2_Concept_Current_INT_20240101.txt"));
+        assertNull(Rf2FileName.parse("release_package_information.json"));
+    }
+}
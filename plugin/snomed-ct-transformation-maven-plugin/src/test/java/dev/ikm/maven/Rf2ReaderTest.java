@@ -0,0 +1,207 @@
+package dev.ikm.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Rf2ReaderTest {
+    private static final String HEADER = "id\teffectiveTime\tactive\tmoduleId\tdefinitionStatusId";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void filterHandsOutEveryRowOfComponentWithAnyPassingRow() throws IOException {
+        Path file = write(
+                "101\t20200131\t1\t900000000000207008\t900000000000074008",
+                "101\t20240101\t0\t900000000000207008\t900000000000074008",
+                "102\t20200131\t1\t900000000000207008\t900000000000074008",
+                "103\t20200131\t1\t900000000000207008\t900000000000074008",
+                "103\t20240101\t1\t900000000000207008\t900000000000074008");
+        // only the 2024 versions are new, as in a delta applied to a datastore holding the 2020 release
+        Rf2Reader reader = new Rf2Reader(file).filter(row -> row.intValue(1) > 20200131);
+
+        assertEquals(List.of("101:20200131", "101:20240101", "103:20200131", "103:20240101"), rows(reader));
+        assertEquals(1, reader.getFilteredRowCount());
+        assertEquals(4, reader.getRowCount());
+    }
+
+    @Test
+    void everyRowFilterPassesEveryComponent() throws IOException {
+        Path file = write(
+                "101\t20200131\t1\t900000000000207008\t900000000000074008",
+                "102\t20200131\t1\t900000000000207008\t900000000000074008");
+        Rf2Reader reader = new Rf2Reader(file).filter(Rf2Reader.EVERY_ROW);
+
+        assertEquals(List.of("101:20200131", "102:20200131"), rows(reader));
+        assertEquals(0, reader.getFilteredRowCount());
+    }
+
+    @Test
+    void forEachComponentGroupsVersionsAcrossSmallChunks() throws IOException {
+        Path file = write(
+                "101\t20240101\t0\t900000000000207008\t900000000000074008",
+                "101\t20200131\t1\t900000000000207008\t900000000000074008",
+                "102\t20200131\t1\t900000000000207008\t900000000000074008",
+                "103\t20200131\t1\t900000000000207008\t900000000000074008",
+                "103\t20240101\t1\t900000000000207008\t900000000000074008");
+        List<String> components = new ArrayList<>();
+        new Rf2Reader(file, ForkJoinPool.commonPool(), 64).forEachComponent(versions -> {
+            StringBuilder component = new StringBuilder();
+            for (Rf2Row row : versions) {
+                component.append(component.isEmpty() ? "" : ",").append(row.string(0)).append(':').append(row.string(1));
+            }
+            components.add(component.toString());
+        });
+
+        assertEquals(List.of("101:20200131,101:20240101", "102:20200131", "103:20200131,103:20240101"), components);
+    }
+
+    @Test
+    void rowsOfOneIdApartInTheFileAreSeparateComponents() throws IOException {
+        Path file = write(
+                "101\t20240101\t1\t900000000000207008\t900000000000074008",
+                "102\t20200131\t1\t900000000000207008\t900000000000074008",
+                "101\t20200131\t1\t900000000000207008\t900000000000074008");
+        List<Integer> componentSizes = new ArrayList<>();
+        new Rf2Reader(file).forEachComponent(versions -> componentSizes.add(versions.size()));
+
+        assertEquals(List.of(1, 1, 1), componentSizes);
+    }
+
+    @Test
+    void forEachComponentViewIsReadOnly() throws IOException {
+        Path file = write("101\t20200131\t1\t900000000000207008\t900000000000074008");
+        new Rf2Reader(file).forEachComponent(versions ->
+                assertThrows(UnsupportedOperationException.class, () -> versions.remove(0)));
+    }
+
+    @Test
+    void chunksEndOnlyBetweenComponents() throws IOException {
+        Path file = write(versionedRows(200));
+        List<String> expected = rows(new Rf2Reader(file));
+
+        for (int chunkSize : new int[]{1, 40, 97, 1024}) {
+            List<List<String>> components = components(new Rf2Reader(file, ForkJoinPool.commonPool(), chunkSize));
+            assertEquals(200, components.size(), "chunk size " + chunkSize);
+            assertEquals(expected, components.stream().flatMap(List::stream).toList(), "chunk size " + chunkSize);
+        }
+        assertEquals(600, expected.size());
+        assertEquals(List.of("100000:20220101", "100000:20230101", "100000:20240101"), expected.subList(0, 3));
+    }
+
+    @Test
+    void streamedChunksFromZipMatchMappedChunks() throws IOException {
+        String[] rows = versionedRows(200);
+        Path file = write(rows);
+        Path zip = directory.resolve("release.zip");
+        try (FileSystem zipFileSystem = FileSystems.newFileSystem(zip, Map.of("create", "true"))) {
+            Files.copy(file, zipFileSystem.getPath(file.getFileName().toString()));
+        }
+        List<List<String>> mapped = components(new Rf2Reader(file, ForkJoinPool.commonPool(), 97));
+
+        try (FileSystem zipFileSystem = FileSystems.newFileSystem(zip)) {
+            Path entry = zipFileSystem.getPath(file.getFileName().toString());
+            for (int chunkSize : new int[]{1, 97, 4096}) {
+                assertEquals(mapped, components(new Rf2Reader(entry, ForkJoinPool.commonPool(), chunkSize)), "chunk size " + chunkSize);
+            }
+        }
+    }
+
+    @Test
+    void rowLongerThanTheScanWindowStaysWhole() throws IOException {
+        String term = "x".repeat(100_000);
+        Path file = write(
+                "101\t20200131\t1\t900000000000207008\t" + term,
+                "101\t20240101\t1\t900000000000207008\t" + term,
+                "102\t20200131\t1\t900000000000207008\t900000000000074008");
+        List<Integer> lengths = new ArrayList<>();
+        new Rf2Reader(file, ForkJoinPool.commonPool(), 16).forEachRow(row -> lengths.add(row.length(4)));
+
+        assertEquals(List.of(100_000, 100_000, 18), lengths);
+    }
+
+    @Test
+    void headerOnlyFileHasNoRows() throws IOException {
+        Path file = directory.resolve("sct2_Concept_Full_INT_20240101.txt");
+        Files.writeString(file, HEADER + "\r\n", StandardCharsets.UTF_8);
+
+        assertEquals(List.of(), rows(new Rf2Reader(file, ForkJoinPool.commonPool(), 8)));
+    }
+
+    @Test
+    void lastRowWithoutLineSeparatorIsRead() throws IOException {
+        Path file = directory.resolve("sct2_Concept_Full_INT_20240101.txt");
+        Files.writeString(file, HEADER + "\n101\t20200131\t1\t900000000000207008\t900000000000074008", StandardCharsets.UTF_8);
+
+        assertEquals(List.of("101:20200131"), rows(new Rf2Reader(file)));
+    }
+
+    @Test
+    void byteLengthsAddUpToTheFileWhateverTheLineSeparators() throws IOException {
+        Path file = directory.resolve("sct2_Concept_Full_INT_20240101.txt");
+        String rows = "101\t20200131\t1\t900000000000207008\t900000000000074008\r\n"
+                + "102\t20200131\t1\t900000000000207008\t900000000000074008\n"
+                + "103\t20200131\t1\t900000000000207008\t900000000000074008\r\n"
+                + "104\t20200131\t1\t900000000000207008\t900000000000074008";
+        Files.writeString(file, HEADER + "\r\n" + rows, StandardCharsets.UTF_8);
+        List<Integer> byteLengths = new ArrayList<>();
+
+        Rf2Reader reader = new Rf2Reader(file, ForkJoinPool.commonPool(), 64);
+        reader.forEachRow(row -> byteLengths.add(row.byteLength()));
+
+        assertEquals(List.of(54, 53, 54, 52), byteLengths);
+        assertEquals(rows.length(), reader.getByteCount());
+    }
+
+    @Test
+    void nullFilterIsRejected() {
+        assertThrows(NullPointerException.class, () -> new Rf2Reader(directory).filter(null));
+    }
+
+    Path write(String... rows) throws IOException {
+        Path file = directory.resolve("sct2_Concept_Full_INT_20240101.txt");
+        Files.writeString(file, HEADER + "\r\n" + String.join("\r\n", rows) + "\r\n", StandardCharsets.UTF_8);
+        return file;
+    }
+
+    /**
+     * @return three versions of each of the given number of components, the latest version first
+     */
+    static String[] versionedRows(int components) {
+        String[] rows = new String[components * 3];
+        for (int i = 0; i < components; i++) {
+            for (int version = 0; version < 3; version++) {
+                rows[i * 3 + version] = (100000 + i) + "\t" + (20240101 - version * 10000) + "\t1\t900000000000207008\t900000000000074008";
+            }
+        }
+        return rows;
+    }
+
+    static List<List<String>> components(Rf2Reader reader) throws IOException {
+        List<List<String>> components = new ArrayList<>();
+        reader.forEachComponent(versions -> components.add(versions.stream()
+                .map(row -> row.string(0) + ":" + row.string(1))
+                .toList()));
+        return components;
+    }
+
+    static List<String> rows(Rf2Reader reader) throws IOException {
+        List<String> rows = new ArrayList<>();
+        reader.forEachRow(row -> rows.add(row.string(0) + ":" + row.string(1)));
+        return rows;
+    }
+}
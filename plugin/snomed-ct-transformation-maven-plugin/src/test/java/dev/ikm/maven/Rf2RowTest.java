@@ -0,0 +1,130 @@
+package dev.ikm.maven;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Rf2RowTest {
+
+    @Test
+    void columnViewsGrowForWideRefsetRows() {
+        List<String> columns = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            columns.add("c" + i);
+        }
+        Rf2Row row = row(String.join("\t", columns));
+
+        assertEquals(40, row.columnCount());
+        assertEquals("c39", row.column(39).toString());
+        assertEquals("c17", row.column(17).toString());
+        assertEquals("c0", row.column(0).toString());
+    }
+
+    @Test
+    void columnPastTheRowFailsWithItsIndex() {
+        Rf2Row row = row("101\t20240101\t1");
+
+        IndexOutOfBoundsException e = assertThrows(IndexOutOfBoundsException.class, () -> row.column(3));
+        assertEquals("Column 3 of 3", e.getMessage());
+    }
+
+    @Test
+    void numericAndFlagColumnsAreParsedFromTheBytes() {
+        Rf2Row row = row("900000000000207008\t20240131\t1\t0\t012\t");
+
+        assertEquals(900000000000207008L, row.longValue(0));
+        assertEquals(20240131, row.intValue(1));
+        assertTrue(row.booleanValue(2));
+        assertFalse(row.booleanValue(3));
+        assertTrue(row.isNumber(0));
+        assertFalse(row.isNumber(4), "leading zero");
+        assertFalse(row.isNumber(5), "empty column");
+        assertEquals(0, row.length(5));
+    }
+
+    @Test
+    void malformedNumbersAreRejected() {
+        Rf2Row row = row("12a\t1234567890123456789\t3000000000");
+
+        assertThrows(NumberFormatException.class, () -> row.longValue(0));
+        assertThrows(NumberFormatException.class, () -> row.longValue(1));
+        assertThrows(NumberFormatException.class, () -> row.intValue(2));
+    }
+
+    @Test
+    void stringsAreDecodedAsUtf8() {
+        Rf2Row row = row("101\tMénière's disease\ten");
+
+        assertEquals("Ménière's disease", row.string(1));
+        assertEquals("101\tMénière's disease\ten", row.toString());
+        // no line separator follows the row
+        assertEquals(26, row.byteLength());
+    }
+
+    @Test
+    void columnComparisonAndHashDependOnlyOnTheBytes() {
+        Rf2Row row = row("101\ten\t101");
+
+        assertTrue(row.contentEquals(1, "en"));
+        assertFalse(row.contentEquals(1, "e"));
+        assertFalse(row.contentEquals(1, null));
+        assertEquals(row.columnHash(0), row.columnHash(2));
+        assertEquals("en", row.column(1).toString());
+        assertEquals('n', row.column(1).charAt(1));
+    }
+
+    @Test
+    void copyStaysValidAfterTheCursorMoves() {
+        Rf2Row cursor = row("101\t20240101\t1");
+        Rf2Row copy = cursor.copy();
+        Rf2Row other = row("202\t20200131\t0\textra");
+        cursor.position(other);
+
+        assertEquals("101\t20240101\t1", copy.toString());
+        assertEquals(3, copy.columnCount());
+        assertEquals("202", cursor.string(0));
+    }
+
+    @Test
+    void rowBytesAreCopiedWithoutTheLineSeparator() {
+        Rf2Row row = row("101\t20240101");
+        ByteBuffer target = ByteBuffer.allocate(32);
+        row.copyTo(target);
+        byte[] column = new byte[row.length(1)];
+        row.copyBytes(1, column, 0);
+
+        assertEquals(12, target.position());
+        assertEquals("20240101", new String(column, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Positions a cursor on one line, indexed the way the reader indexes a chunk
+     */
+    static Rf2Row row(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        List<Integer> ends = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\t') {
+                ends.add(i);
+            }
+        }
+        ends.add(bytes.length);
+        int[] bounds = new int[ends.size() + 2];
+        bounds[0] = ends.size();
+        bounds[1] = 0;
+        for (int i = 0; i < ends.size(); i++) {
+            bounds[i + 2] = ends.get(i);
+        }
+        Rf2Row row = new Rf2Row();
+        row.position(ByteBuffer.wrap(bytes), bounds, 0);
+        return row;
+    }
+}
@@ -0,0 +1,160 @@
+package dev.ikm.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Rf2SorterTest {
+    private static final String HEADER = "id\teffectiveTime\tactive\tmoduleId";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sortedFileIsReadAsItIs() throws IOException {
+        Path file = write("9\t20200131\t1\tA", "10\t20200131\t1\tA", "10\t20240101\t1\tA");
+
+        assertEquals(file, sorter(1024).sorted(file));
+    }
+
+    @Test
+    void idsAreComparedAsNumbersAndThenByEffectiveTime() throws IOException {
+        Path file = write(
+                "100\t20240101\t1\tA",
+                "9\t20200131\t1\tA",
+                "100\t20200131\t1\tA",
+                "20\t20200131\t1\tA");
+
+        Path sorted = sorter(1024).sorted(file);
+
+        assertNotEquals(file, sorted);
+        assertEquals(List.of(
+                "9\t20200131\t1\tA",
+                "20\t20200131\t1\tA",
+                "100\t20200131\t1\tA",
+                "100\t20240101\t1\tA"), rows(sorted));
+    }
+
+    @Test
+    void nonNumericIdsAreComparedByteByByte() throws IOException {
+        Path file = write(
+                "b6a4f7e2-0000-0000-0000-000000000000\t20200131\t1\tA",
+                "0a1b2c3d-0000-0000-0000-000000000000\t20200131\t1\tA",
+                "9f000000-0000-0000-0000-000000000000\t20200131\t1\tA");
+
+        assertEquals(List.of(
+                "0a1b2c3d-0000-0000-0000-000000000000\t20200131\t1\tA",
+                "9f000000-0000-0000-0000-000000000000\t20200131\t1\tA",
+                "b6a4f7e2-0000-0000-0000-000000000000\t20200131\t1\tA"), rows(sorter(1024).sorted(file)));
+    }
+
+    @Test
+    void spilledRunsMergeIntoTheSameOrderAsOneRun() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            int id = (i * 7919) % 100;
+            lines.add((1000 + id) + "\t" + (20240101 - (i % 3) * 10000) + "\t1\t" + i);
+        }
+        Path file = write(lines.toArray(String[]::new));
+        List<String> inOneRun = rows(new Rf2Sorter(directory.resolve("one"), 1 << 20).sorted(file));
+
+        // about 20 rows fit the buffer, so the rows are spilled to 15 runs and merged
+        Path spilled = new Rf2Sorter(directory.resolve("spilled"), 400).sorted(file);
+
+        assertEquals(inOneRun, rows(spilled));
+        assertEquals(300, inOneRun.size());
+        try (Stream<Path> files = Files.list(directory.resolve("spilled"))) {
+            assertEquals(List.of(spilled), files.toList(), "run files are deleted after the merge");
+        }
+    }
+
+    @Test
+    void rowsWithTheSameKeyKeepTheirFileOrderAcrossRuns() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            // ties on id and effective time, told apart by the last column
+            lines.add((i % 2 == 0 ? "200" : "100") + "\t20200131\t1\t" + i);
+        }
+        Path sorted = new Rf2Sorter(directory.resolve("sorted"), 100).sorted(write(lines.toArray(String[]::new)));
+
+        List<String> expected = new ArrayList<>();
+        lines.stream().filter(line -> line.startsWith("100")).forEach(expected::add);
+        lines.stream().filter(line -> line.startsWith("200")).forEach(expected::add);
+        assertEquals(expected, rows(sorted));
+    }
+
+    @Test
+    void eachFileIsCheckedOnlyOnce() throws IOException {
+        Path file = write("9\t20200131\t1\tA", "10\t20200131\t1\tA");
+        Rf2Sorter sorter = sorter(1024);
+        assertEquals(file, sorter.sorted(file));
+
+        // an out of order file now, but the answer for the path is kept for the run
+        Files.writeString(file, HEADER + "\n10\t20200131\t1\tA\n9\t20200131\t1\tA\n", StandardCharsets.UTF_8);
+
+        assertEquals(file, sorter.sorted(file));
+    }
+
+    @Test
+    void filesSortedInParallelShareTheBuffer() throws Exception {
+        Rf2Sorter sorter = sorter(400);
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            List<String> lines = new ArrayList<>();
+            for (int row = 0; row < 100; row++) {
+                lines.add((1000 + (row * 37 + i) % 100) + "\t20200131\t1\t" + i);
+            }
+            Path file = directory.resolve("sct2_Concept_Full_INT_2024010" + i + ".txt");
+            Files.writeString(file, HEADER + "\n" + String.join("\n", lines) + "\n", StandardCharsets.UTF_8);
+            files.add(file);
+        }
+
+        List<Path> sorted = files.parallelStream().map(file -> {
+            try {
+                return sorter.sorted(file);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }).toList();
+
+        for (int i = 0; i < files.size(); i++) {
+            List<String> expected = new ArrayList<>(rows(files.get(i)));
+            expected.sort(Comparator.comparing(line -> line.substring(0, 4)));
+            assertEquals(expected, rows(sorted.get(i)));
+        }
+    }
+
+    @Test
+    void rowLargerThanTheBufferFails() throws IOException {
+        Path file = write("2\t20200131\t1\tA", "1\t20200131\t1\t" + "x".repeat(100));
+
+        assertThrows(RuntimeException.class, () -> sorter(64).sorted(file));
+    }
+
+    private Rf2Sorter sorter(long memoryBytes) {
+        return new Rf2Sorter(directory.resolve("sorted"), memoryBytes);
+    }
+
+    private Path write(String... rows) throws IOException {
+        Path file = directory.resolve("sct2_Concept_Full_INT_20240101.txt");
+        Files.writeString(file, HEADER + "\r\n" + String.join("\r\n", rows) + "\r\n", StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<String> rows(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        return lines.subList(1, lines.size());
+    }
+}
@@ -0,0 +1,36 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.common.id.PublicIds;
+import dev.ikm.tinkar.common.util.uuid.UuidT5Generator;
+import dev.ikm.tinkar.terms.EntityProxy;
+import dev.ikm.tinkar.terms.TinkarTerm;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class RowContextTest {
+    private static final UUID NAMESPACE = UUID.fromString("48b004d4-6457-4648-8d58-e3287126d96b");
+    private static final EntityProxy.Concept SCHEME = EntityProxy.Concept.make(PublicIds.of(UuidT5Generator.get(NAMESPACE, "900000000000294009")));
+    private static final EntityProxy.Concept SOURCE = EntityProxy.Concept.make(PublicIds.of(UuidT5Generator.get(NAMESPACE, "source")));
+
+    @Test
+    void identifierSemanticIsDerivedFromConceptSchemeAndIdentifier() {
+        // identifier semantics used to get random UUIDs from the Composer, this is the public id they have now
+        UUID expected = UuidT5Generator.get(TinkarTerm.IDENTIFIER_PATTERN.asUuidArray()[0],
+                SCHEME.asUuidArray()[0] + " " + SOURCE.asUuidArray()[0] + " " + "A-1");
+
+        assertArrayEquals(new UUID[]{expected}, RowContext.identifierSemantic(SCHEME, SOURCE, "A-1").asUuidArray());
+    }
+
+    @Test
+    void identifiersOfOneSchemeGetTheirOwnSemantics() {
+        // every row of an identifier file is written to the concept of its scheme
+        UUID identifier = RowContext.identifierSemantic(SCHEME, SOURCE, "A-1").asUuidArray()[0];
+
+        assertNotEquals(identifier, RowContext.identifierSemantic(SCHEME, SOURCE, "A-2").asUuidArray()[0]);
+        assertNotEquals(identifier, RowContext.identifierSemantic(SCHEME, TinkarTerm.UNIVERSALLY_UNIQUE_IDENTIFIER, "A-1").asUuidArray()[0]);
+    }
+}
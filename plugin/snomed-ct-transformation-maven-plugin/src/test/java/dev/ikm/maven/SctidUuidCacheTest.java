@@ -0,0 +1,71 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.common.util.uuid.UuidT5Generator;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SctidUuidCacheTest {
+    private static final UUID NAMESPACE = UUID.fromString("48b004d4-6457-4648-8d58-e3287126d96b");
+
+    @Test
+    void uuidsMatchTheGeneratorOnAndOffHeap() {
+        for (boolean offHeap : new boolean[]{false, true}) {
+            SctidUuidCache cache = new SctidUuidCache(NAMESPACE, 16, offHeap);
+            for (long sctid : new long[]{1L, 138875005L, 900000000000207008L, 999999999999999999L}) {
+                assertEquals(UuidT5Generator.get(NAMESPACE, Long.toString(sctid)), cache.get(sctid), sctid + (offHeap ? " off-heap" : ""));
+            }
+        }
+    }
+
+    @Test
+    void tablesGrowPastTheExpectedSize() {
+        SctidUuidCache cache = new SctidUuidCache(NAMESPACE, 16, false);
+        LongStream.rangeClosed(1, 20_000).forEach(sctid -> cache.get(sctid * 1000 + 5));
+
+        assertEquals(20_000, cache.size());
+        assertEquals(UuidT5Generator.get(NAMESPACE, "7005"), cache.get(7005));
+        assertEquals(UuidT5Generator.get(NAMESPACE, "20000005"), cache.get(20000005));
+    }
+
+    @Test
+    void repeatedLookupsAreHits() {
+        SctidUuidCache cache = new SctidUuidCache(NAMESPACE, 16, false);
+        cache.get(138875005L);
+        cache.get(138875005L);
+        cache.get(404684003L);
+
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void parallelLookupsAgree() {
+        SctidUuidCache cache = new SctidUuidCache(NAMESPACE, 1024, true);
+        LongStream.rangeClosed(1, 50_000).parallel().forEach(sctid -> cache.get(sctid % 5_000 + 1));
+
+        assertEquals(5_000, cache.size());
+        assertEquals(50_000, cache.hits() + cache.misses());
+        LongStream.rangeClosed(1, 5_000).forEach(sctid ->
+                assertEquals(UuidT5Generator.get(NAMESPACE, Long.toString(sctid)), cache.get(sctid)));
+    }
+
+    @Test
+    void nonPositiveIdsAreRejected() {
+        SctidUuidCache cache = new SctidUuidCache(NAMESPACE, 16, false);
+
+        assertThrows(IllegalArgumentException.class, () -> cache.get(0));
+        assertThrows(IllegalArgumentException.class, () -> cache.get(-1));
+    }
+
+    @Test
+    void namespaceIsKept() {
+        assertSame(NAMESPACE, new SctidUuidCache(NAMESPACE, 16, false).getNamespace());
+    }
+}
@@ -0,0 +1,170 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.composer.Composer;
+import dev.ikm.tinkar.composer.Session;
+import dev.ikm.tinkar.terms.EntityProxy;
+import dev.ikm.tinkar.terms.State;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionPoolTest {
+    private static final UUID NAMESPACE = UUID.fromString("48b004d4-6457-4648-8d58-e3287126d96b");
+    private static final String HEADER = "id\teffectiveTime\tactive\tmoduleId\tdefinitionStatusId";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resumeAfterPartlyCommittedBatchSkipsOnlyCommittedPartitions() throws IOException {
+        // ids 102, 104 and 106 hash to partition 0, ids 101, 103 and 105 to partition 1
+        Path file = concepts(101, 102, 103, 104, 105, 106);
+        try (SessionCommitter committer = new SessionCommitter(2)) {
+            CheckpointJournal journal = CheckpointJournal.open(directory, false);
+            List<String> composed = new ArrayList<>();
+            RuntimeException failure = assertThrows(RuntimeException.class,
+                    () -> transform(file, journal, committer, 1, composed));
+            assertEquals("commit failed", failure.getMessage());
+            assertEquals(0, journal.getCommittedRows(file));
+            assertArrayEquals(new long[]{3, 0}, journal.getCommittedPartitionRows(file));
+
+            CheckpointJournal resumed = CheckpointJournal.open(directory, true);
+            List<String> recomposed = new ArrayList<>();
+            transform(file, resumed, committer, -1, recomposed);
+
+            assertEquals(List.of("101", "103", "104", "105", "106"), recomposed);
+            assertEquals(6, resumed.getCommittedRows(file));
+            assertEquals(0, resumed.getCommittedPartitionRows(file).length);
+            assertTrue(resumed.isComplete(file));
+        }
+    }
+
+    @Test
+    void completeBatchClearsPartitionCheckpoint() throws IOException {
+        Path file = concepts(101, 102, 103, 104);
+        try (SessionCommitter committer = new SessionCommitter(2)) {
+            CheckpointJournal journal = CheckpointJournal.open(directory, false);
+            transform(file, journal, committer, -1, new ArrayList<>());
+
+            assertEquals(4, journal.getCommittedRows(file));
+            assertEquals(0, journal.getCommittedPartitionRows(file).length);
+        }
+    }
+
+    @Test
+    void partlyCommittedFileCannotResumeWithOtherWorkerCount() throws IOException {
+        Path file = concepts(101, 102, 103, 104);
+        CheckpointJournal journal = CheckpointJournal.open(directory, false);
+        journal.checkpointPartitions(file, new long[]{3, 0});
+
+        try (SessionCommitter committer = new SessionCommitter(3)) {
+            SessionPool sessions = new SessionPool(new Composer("test"), NAMESPACE, CommitPolicy.AT_END, committer);
+            assertThrows(IllegalStateException.class, () -> sessions.checkpointTo(journal, file, 3, true));
+        }
+    }
+
+    @Test
+    void withoutBudgetJournalOrWorkersSessionsWaitForTheFinalCommit() {
+        TestComposer composer = new TestComposer(false);
+        SessionPool sessions = new SessionPool(composer, NAMESPACE, CommitPolicy.AT_END, SessionCommitter.SEQUENTIAL);
+        sessions.nextChronology(101, 100);
+        sessions.open(State.ACTIVE, 0, 900000000000207008L);
+        sessions.complete();
+
+        assertEquals(0, composer.commits);
+        assertEquals(0, sessions.getCommitCount());
+    }
+
+    @Test
+    void chronologiesBuiltAfterReadingAreSpreadOverThePartitions() {
+        try (SessionCommitter committer = new SessionCommitter(2)) {
+            List<TestComposer> composers = new ArrayList<>();
+            SessionPool sessions = new SessionPool(new Composer("test"), NAMESPACE, new CommitPolicy(3, 0, 0), committer,
+                    partition -> {
+                        TestComposer composer = new TestComposer(false);
+                        composers.add(composer);
+                        return composer;
+                    });
+            for (long conceptId = 101; conceptId <= 106; conceptId++) {
+                sessions.nextChronology(conceptId, 100);
+                sessions.open(State.ACTIVE, 0, 900000000000207008L);
+            }
+            sessions.complete();
+
+            // one session per partition and batch: three chronologies commit, then the other three
+            assertEquals(2, sessions.getCommitCount());
+            assertEquals(2, composers.get(0).commits);
+            assertEquals(2, composers.get(1).commits);
+        }
+    }
+
+    /**
+     * Composes one session per component, committing every three rows
+     * @param failingPartition partition whose commits fail, or -1
+     * @param composed receives the ids of the components composed
+     */
+    private static void transform(Path file, CheckpointJournal journal, SessionCommitter committer,
+                                  int failingPartition, List<String> composed) throws IOException {
+        SessionPool sessions = new SessionPool(new Composer("test"), NAMESPACE, new CommitPolicy(3, 0, 0), committer,
+                partition -> new TestComposer(partition == failingPartition));
+        long resumedRows = journal.getCommittedRows(file);
+        sessions.checkpointTo(journal, file, resumedRows, true);
+        new Rf2Reader(file).skipRows(resumedRows).forEachComponent(versions -> {
+            if (sessions.nextComponent(versions)) {
+                composed.add(versions.get(0).string(0));
+                sessions.open(State.ACTIVE, 0, versions.get(0).longValue(3));
+            }
+        });
+        sessions.complete();
+        assertFalse(composed.isEmpty());
+    }
+
+    private Path concepts(long... ids) throws IOException {
+        StringBuilder rows = new StringBuilder(HEADER).append("\r\n");
+        for (long id : ids) {
+            rows.append(id).append("\t20240101\t1\t900000000000207008\t900000000000074008\r\n");
+        }
+        Path file = directory.resolve("sct2_Concept_Snapshot_INT_20240101.txt");
+        Files.writeString(file, rows, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    /**
+     * Composer whose sessions need no datastore and whose commits can be made to fail
+     */
+    private static class TestComposer extends Composer {
+        private final boolean failing;
+        private int commits;
+
+        TestComposer(boolean failing) {
+            super("test");
+            this.failing = failing;
+        }
+
+        @Override
+        public Session open(State status, long time, EntityProxy.Concept author, EntityProxy.Concept module, EntityProxy.Concept path) {
+            return null;
+        }
+
+        @Override
+        public void commitSession(Session session) {
+            if (failing) {
+                throw new IllegalStateException("commit failed");
+            }
+            commits++;
+        }
+    }
+}
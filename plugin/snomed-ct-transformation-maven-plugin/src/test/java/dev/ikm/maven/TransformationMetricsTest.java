@@ -0,0 +1,110 @@
+package dev.ikm.maven;
+
+import dev.ikm.maven.TransformationMetrics.Json;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransformationMetricsTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void stringsAreEscaped() {
+        Json json = new Json();
+        json.open();
+        json.field("quote", "say \"hi\"");
+        json.field("backslash", "C:\\release\\");
+        json.field("controls", "a\nb\tc\rd\u0001");
+        json.field("unicode", "Ménière's disease \u00b5g");
+        json.field("missing", (String) null);
+        json.close();
+
+        assertEquals("{\n"
+                + "  \"quote\": \"say \\\"hi\\\"\",\n"
+                + "  \"backslash\": \"C:\\\\release\\\\\",\n"
+                + "  \"controls\": \"a\\nb\\tc\\u000dd\\u0001\",\n"
+                + "  \"unicode\": \"Ménière's disease \u00b5g\",\n"
+                + "  \"missing\": null\n"
+                + "}\n", json.toString());
+    }
+
+    @Test
+    void namesAreEscaped() {
+        Json json = new Json();
+        json.open();
+        json.field("a\"b", 1L);
+        json.close();
+
+        assertEquals("{\n  \"a\\\"b\": 1\n}\n", json.toString());
+    }
+
+    @Test
+    void nestedObjectsAndArraysAreSeparated() {
+        Json json = new Json();
+        json.open();
+        json.name("stages").open();
+        json.field("transform", 12L);
+        json.close();
+        json.name("files").openArray();
+        json.open();
+        json.field("rate", 0.5);
+        json.close();
+        json.open();
+        json.field("rate", 1.25);
+        json.close();
+        json.closeArray();
+        json.close();
+
+        assertEquals("{\n"
+                + "  \"stages\": {\n"
+                + "    \"transform\": 12\n"
+                + "  },\n"
+                + "  \"files\": [\n"
+                + "    {\n"
+                + "      \"rate\": 0.500\n"
+                + "    },\n"
+                + "    {\n"
+                + "      \"rate\": 1.250\n"
+                + "    }\n"
+                + "  ]\n"
+                + "}\n", json.toString());
+    }
+
+    @Test
+    void numbersThatAreNotFiniteAreNull() {
+        Json json = new Json();
+        json.open();
+        json.field("nan", Double.NaN);
+        json.field("infinite", Double.POSITIVE_INFINITY);
+        json.close();
+
+        assertEquals("{\n  \"nan\": null,\n  \"infinite\": null\n}\n", json.toString());
+    }
+
+    @Test
+    void reportReplacesEarlierReport() throws IOException {
+        Path report = directory.resolve("transformation-metrics.json");
+        Files.writeString(report, "earlier");
+        TransformationMetrics metrics = new TransformationMetrics();
+        metrics.stage("transform", System.currentTimeMillis());
+        SnomedUtility.generateUUID(UUID.randomUUID(), "1234567");
+
+        metrics.writeReport(report, null);
+
+        String text = Files.readString(report);
+        assertTrue(text.startsWith("{\n  \"started\": "));
+        assertTrue(text.contains("\"uuidsGenerated\": 1,"));
+        assertTrue(text.contains("\"stagesMs\": {\n    \"transform\": "));
+        assertTrue(text.contains("\"files\": [\n  ]"));
+        assertFalse(Files.exists(directory.resolve("transformation-metrics.json.tmp")));
+    }
+}
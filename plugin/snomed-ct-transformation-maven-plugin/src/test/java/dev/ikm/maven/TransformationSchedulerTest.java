@@ -0,0 +1,81 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.composer.Composer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransformationSchedulerTest {
+
+    @Test
+    void fileStartsAfterTheFilesItDependsOn() {
+        List<String> finished = new CopyOnWriteArrayList<>();
+        TransformationScheduler scheduler = new TransformationScheduler(2);
+        scheduler.schedule(Path.of("relationships.txt"), new Dependent(finished, Set.of(Independent.class)));
+        scheduler.schedule(Path.of("concepts.txt"), new Independent(finished, Set.of()));
+
+        scheduler.run();
+
+        assertEquals(List.of("concepts.txt", "relationships.txt"), finished);
+    }
+
+    @Test
+    void dependencyCycleFailsBeforeAnyFileStarts() {
+        List<String> finished = new CopyOnWriteArrayList<>();
+        TransformationScheduler scheduler = new TransformationScheduler(2);
+        scheduler.schedule(Path.of("relationships.txt"), new Dependent(finished, Set.of(Independent.class)));
+        scheduler.schedule(Path.of("concepts.txt"), new Independent(finished, Set.of(Dependent.class)));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, scheduler::run);
+
+        assertTrue(e.getMessage().contains("Dependent (relationships.txt) -> Independent (concepts.txt) -> Dependent"), e.getMessage());
+        assertEquals(List.of(), finished);
+    }
+
+    @Test
+    void fileDependingOnItsOwnTypeIsACycle() {
+        TransformationScheduler scheduler = new TransformationScheduler(1);
+        scheduler.schedule(Path.of("concepts.txt"), new Independent(new CopyOnWriteArrayList<>(), Set.of(Independent.class)));
+
+        assertThrows(IllegalStateException.class, scheduler::run);
+    }
+
+    private static class Independent implements Transformer {
+        private final List<String> finished;
+        private final Set<Class<?>> dependencies;
+
+        Independent(List<String> finished, Set<Class<?>> dependencies) {
+            this.finished = finished;
+            this.dependencies = dependencies;
+        }
+
+        @Override
+        public void transform(Path file, Composer composer) {
+            finished.add(file.toString());
+        }
+
+        @Override
+        public UUID getNamespace() {
+            return UUID.randomUUID();
+        }
+
+        @Override
+        public Set<Class<?>> dependencies() {
+            return dependencies;
+        }
+    }
+
+    private static class Dependent extends Independent {
+        Dependent(List<String> finished, Set<Class<?>> dependencies) {
+            super(finished, dependencies);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package dev.ikm.maven.benchmarks;
+
+import dev.ikm.maven.Rf2FileName;
+import dev.ikm.maven.Rf2Reader;
+import dev.ikm.maven.SnomedUtility;
+import dev.ikm.tinkar.common.service.PrimitiveData;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * How close the nids of components that are read together are: the mean distance between the nid of a concept and
+ * the nids of its active is-a parents, between the nids of the children of a concept next to each other in nid order,
+ * and between the nid of a description and the nid of its concept
+ *
+ * @param parentDistance mean nid distance from a concept to its parents
+ * @param siblingDistance mean nid distance between siblings adjacent in nid order
+ * @param descriptionDistance mean nid distance from a description to its concept
+ */
+record NidLocality(double parentDistance, double siblingDistance, double descriptionDistance) {
+    private static final long IS_A = 116680003L;
+    private static final int ID = 0;
+    private static final int ACTIVE = 2;
+    private static final int SOURCE_ID = 4;
+    private static final int DESTINATION_ID = 5;
+    private static final int CONCEPT_ID = 4;
+    private static final int TYPE_ID = 7;
+
+    /**
+     * @param files RF2 files of a release whose nids are registered
+     * @param namespace namespace the component UUIDs are generated in
+     * @return locality of the registered nids
+     * @throws IOException if a file cannot be read
+     */
+    static NidLocality of(List<Path> files, UUID namespace) throws IOException {
+        long[] parents = new long[2];
+        long[] siblings = new long[2];
+        long[] descriptions = new long[2];
+        Map<Long, List<Integer>> childNids = new HashMap<>();
+        for (Path file : files) {
+            Rf2FileName fileName = Rf2FileName.parse(file.getFileName().toString());
+            switch (fileName == null ? "" : fileName.component()) {
+                case "Relationship" -> new Rf2Reader(file).latestVersionOnly(true).forEachRow(row -> {
+                    if (row.booleanValue(ACTIVE) && row.longValue(TYPE_ID) == IS_A) {
+                        add(parents, distance(namespace, row.longValue(SOURCE_ID), row.longValue(DESTINATION_ID)));
+                        childNids.computeIfAbsent(row.longValue(DESTINATION_ID), id -> new ArrayList<>())
+                                .add(nid(namespace, row.longValue(SOURCE_ID)));
+                    }
+                });
+                case "Description" -> new Rf2Reader(file).latestVersionOnly(true).forEachRow(row ->
+                        add(descriptions, distance(namespace, row.longValue(ID), row.longValue(CONCEPT_ID))));
+                default -> {
+                }
+            }
+        }
+        for (List<Integer> nids : childNids.values()) {
+            nids.sort(null);
+            for (int i = 1; i < nids.size(); i++) {
+                add(siblings, (long) nids.get(i) - nids.get(i - 1));
+            }
+        }
+        return new NidLocality(mean(parents), mean(siblings), mean(descriptions));
+    }
+
+    private static int nid(UUID namespace, long sctid) {
+        return PrimitiveData.nid(SnomedUtility.generateUUID(namespace, sctid));
+    }
+
+    private static long distance(UUID namespace, long sctid, long otherSctid) {
+        return Math.abs((long) nid(namespace, sctid) - nid(namespace, otherSctid));
+    }
+
+    private static void add(long[] sumAndCount, long distance) {
+        sumAndCount[0] += distance;
+        sumAndCount[1]++;
+    }
+
+    private static double mean(long[] sumAndCount) {
+        return sumAndCount[1] == 0 ? 0 : (double) sumAndCount[0] / sumAndCount[1];
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "Mean nid distance: %.1f from a concept to its parents, %.1f between siblings, "
+                + "%.1f from a description to its concept", parentDistance, siblingDistance, descriptionDistance);
+    }
+}
@@ -0,0 +1,102 @@
+package dev.ikm.maven.benchmarks;
+
+import dev.ikm.maven.HierarchyOrder;
+import dev.ikm.maven.NidRegistrar;
+import dev.ikm.maven.SnomedUtility;
+import dev.ikm.tinkar.common.service.CachingService;
+import dev.ikm.tinkar.common.service.PrimitiveData;
+import dev.ikm.tinkar.common.service.ServiceKeys;
+import dev.ikm.tinkar.common.service.ServiceProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Default against breadth-first is-a nid order: the cost of ordering the concepts and of registering the nids of the
+ * sample release in either order, into a throwaway datastore started fresh for every iteration. After each
+ * registration the locality of the nids is logged: the mean nid distance from a concept to its parents and from a
+ * description to its concept.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class NidOrderBenchmark {
+    private static final Logger LOG = LoggerFactory.getLogger(NidOrderBenchmark.class.getSimpleName());
+    private static final String CONTROLLER = "Open SpinedArrayStore";
+
+    @Param({"false", "true"})
+    boolean hierarchyOrdered;
+
+    private Path release;
+    private Path datastore;
+    private List<Path> files;
+
+    @Setup(Level.Trial)
+    public void writeRelease() throws IOException {
+        release = Rf2Sample.write(Files.createTempDirectory("snomed-benchmark-release"));
+        try (Stream<Path> paths = Files.walk(release)) {
+            files = paths.filter(Files::isRegularFile).sorted().toList();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startDatastore() throws IOException {
+        datastore = Files.createTempDirectory("snomed-benchmark-datastore");
+        CachingService.clearAll();
+        ServiceProperties.set(ServiceKeys.DATA_STORE_ROOT, datastore.toFile());
+        PrimitiveData.selectControllerByName(CONTROLLER);
+        PrimitiveData.start();
+        SnomedUtility.initializeUuidCache(Rf2Sample.NAMESPACE, Rf2Sample.ROWS * 4, false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopDatastore() throws IOException {
+        LOG.info(NidLocality.of(files, Rf2Sample.NAMESPACE).toString());
+        SnomedUtility.clearUuidCache();
+        PrimitiveData.stop();
+        Rf2Sample.delete(datastore);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteRelease() throws IOException {
+        Rf2Sample.delete(release);
+    }
+
+    @Benchmark
+    public long register() {
+        return new NidRegistrar(Rf2Sample.NAMESPACE, Runtime.getRuntime().availableProcessors())
+                .hierarchyOrdered(hierarchyOrdered)
+                .register(files);
+    }
+
+    /**
+     * Breadth-first ranks alone, which a hierarchy ordered registration computes before assigning any nid
+     */
+    @Benchmark
+    public Map<Long, Integer> conceptRanks() throws IOException {
+        return HierarchyOrder.conceptRanks(files);
+    }
+}
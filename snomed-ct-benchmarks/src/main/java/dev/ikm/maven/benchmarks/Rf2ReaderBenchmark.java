@@ -0,0 +1,109 @@
+package dev.ikm.maven.benchmarks;
+
+import dev.ikm.maven.Rf2Reader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of reading a sample RF2 file and parsing the id, effectiveTime, active and moduleId columns of every row,
+ * reported per row of the file, so the GC profiler's normalized allocation is the allocation per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(Rf2Sample.ROWS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Rf2ReaderBenchmark {
+    private static final int ID = 0;
+    private static final int EFFECTIVE_TIME = 1;
+    private static final int ACTIVE = 2;
+    private static final int MODULE_ID = 3;
+
+    @Param({"Concept", "Description", "Language", "OWLExpression"})
+    String component;
+
+    @Param({"false", "true"})
+    boolean latestVersionOnly;
+
+    private Path release;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        release = Rf2Sample.write(Files.createTempDirectory("snomed-benchmark-release"));
+        file = Rf2Sample.file(release, component);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Rf2Sample.delete(release);
+    }
+
+    @Benchmark
+    public void forEachRow(Blackhole blackhole) throws IOException {
+        new Rf2Reader(file).latestVersionOnly(latestVersionOnly).forEachRow(row -> {
+            blackhole.consume(row.columnHash(ID));
+            blackhole.consume(row.intValue(EFFECTIVE_TIME));
+            blackhole.consume(row.booleanValue(ACTIVE));
+            blackhole.consume(row.longValue(MODULE_ID));
+        });
+    }
+
+    /**
+     * The same columns parsed the way the transformers did before the row cursor, splitting every line into strings.
+     * The baseline reads every version whatever latestVersionOnly is.
+     */
+    @Benchmark
+    public void splitLines(Blackhole blackhole) throws IOException {
+        try (Stream<String> lines = Files.lines(file)) {
+            lines.skip(1).forEach(line -> {
+                String[] columns = line.split("\t");
+                blackhole.consume(columns[ID].hashCode());
+                blackhole.consume(Integer.parseInt(columns[EFFECTIVE_TIME]));
+                blackhole.consume(columns[ACTIVE].equals("1"));
+                blackhole.consume(Long.parseLong(columns[MODULE_ID]));
+            });
+        }
+    }
+
+    /**
+     * Rows decoded to strings, as the text columns of descriptions and axioms are
+     */
+    @Benchmark
+    public void forEachRowAsStrings(Blackhole blackhole) throws IOException {
+        new Rf2Reader(file).latestVersionOnly(latestVersionOnly).forEachRow(row -> {
+            for (int column = 0; column < row.columnCount(); column++) {
+                blackhole.consume(row.string(column));
+            }
+        });
+    }
+
+    /**
+     * Rows grouped by component, as the row transformers receive them
+     */
+    @Benchmark
+    public void forEachComponent(Blackhole blackhole) throws IOException {
+        new Rf2Reader(file).latestVersionOnly(latestVersionOnly).forEachComponent(blackhole::consume);
+    }
+}
@@ -0,0 +1,178 @@
+package dev.ikm.maven.benchmarks;
+
+import dev.ikm.maven.Rf2FileName;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+/**
+ * Writes a fixed, synthetic RF2 Full release for the benchmarks, so every run reads the same rows without needing a
+ * licensed release. Every file holds exactly {@link #ROWS} rows, every fourth component with an older inactive
+ * version before its current one. Concepts form a binary is-a tree, stated as OWL SubClassOf axioms and inferred
+ * as relationships, and every description has a US English language member. As in a real release, the tree is
+ * scattered over the SCTIDs, so the concept file is not in is-a order.
+ */
+final class Rf2Sample {
+    static final int ROWS = 10_000;
+    static final UUID NAMESPACE = UUID.fromString("48b004d4-6457-4648-8d58-e3287126d96b");
+    static final String VERSION_DATE = "20240101";
+    static final String OLDER_VERSION_DATE = "20200131";
+
+    private static final long CORE_MODULE = 900000000000207008L;
+    private static final long PRIMITIVE = 900000000000074008L;
+    private static final long FULLY_SPECIFIED_NAME = 900000000000003001L;
+    private static final long SYNONYM = 900000000000013009L;
+    private static final long DEFINITION = 900000000000550004L;
+    private static final long CASE_INSENSITIVE = 900000000000448009L;
+    private static final long US_ENGLISH = 900000000000509007L;
+    private static final long PREFERRED = 900000000000548007L;
+    private static final long OWL_AXIOM_REFSET = 733073007L;
+    private static final long IDENTIFIER_SCHEME = 900000000000294009L;
+    private static final long IS_A = 116680003L;
+    private static final long INFERRED_RELATIONSHIP = 900000000000011006L;
+    private static final long EXISTENTIAL = 900000000000451002L;
+    private static final int CONCEPT_PARTITION = 0;
+    private static final int DESCRIPTION_PARTITION = 1;
+    private static final int RELATIONSHIP_PARTITION = 2;
+    /**
+     * prime to the number of concepts, so multiplying a tree position by it modulo the number of concepts is a bijection
+     */
+    private static final long SCATTER = 7919;
+
+    /**
+     * number of concepts in the concept file, four components in every five rows
+     */
+    static final int CONCEPTS = ROWS * 4 / 5;
+
+    private Rf2Sample() {
+    }
+
+    /**
+     * @param directory directory to write the release into
+     * @return the directory
+     * @throws IOException if a file cannot be written
+     */
+    static Path write(Path directory) throws IOException {
+        Path terminology = Files.createDirectories(directory.resolve("Full/Terminology"));
+        Path language = Files.createDirectories(directory.resolve("Full/Refset/Language"));
+        write(terminology.resolve("sct2_Concept_Full_INT_" + VERSION_DATE + ".txt"),
+                "id\teffectiveTime\tactive\tmoduleId\tdefinitionStatusId",
+                k -> sctid(k, CONCEPT_PARTITION) + "", k -> PRIMITIVE + "");
+        write(terminology.resolve("sct2_Description_Full-en_INT_" + VERSION_DATE + ".txt"),
+                "id\teffectiveTime\tactive\tmoduleId\tconceptId\tlanguageCode\ttypeId\tterm\tcaseSignificanceId",
+                k -> sctid(k, DESCRIPTION_PARTITION) + "",
+                k -> sctid(k % CONCEPTS, CONCEPT_PARTITION) + "\ten\t" + (k % 2 == 0 ? FULLY_SPECIFIED_NAME : SYNONYM)
+                        + "\tSample concept " + (k % CONCEPTS) + (k % 2 == 0 ? " (finding)" : "") + "\t" + CASE_INSENSITIVE);
+        write(terminology.resolve("sct2_TextDefinition_Full-en_INT_" + VERSION_DATE + ".txt"),
+                "id\teffectiveTime\tactive\tmoduleId\tconceptId\tlanguageCode\ttypeId\tterm\tcaseSignificanceId",
+                k -> sctid(CONCEPTS + k, DESCRIPTION_PARTITION) + "",
+                k -> sctid(k % CONCEPTS, CONCEPT_PARTITION) + "\ten\t" + DEFINITION
+                        + "\tA sample concept defined for benchmarking, number " + (k % CONCEPTS) + "\t" + CASE_INSENSITIVE);
+        write(terminology.resolve("sct2_Relationship_Full_INT_" + VERSION_DATE + ".txt"),
+                "id\teffectiveTime\tactive\tmoduleId\tsourceId\tdestinationId\trelationshipGroup\ttypeId\tcharacteristicTypeId\tmodifierId",
+                k -> sctid(k, RELATIONSHIP_PARTITION) + "",
+                k -> sctid(child(k), CONCEPT_PARTITION) + "\t" + sctid(parent(k), CONCEPT_PARTITION) + "\t0\t" + IS_A
+                        + "\t" + INFERRED_RELATIONSHIP + "\t" + EXISTENTIAL);
+        write(terminology.resolve("sct2_sRefset_OWLExpressionFull_INT_" + VERSION_DATE + ".txt"),
+                "id\teffectiveTime\tactive\tmoduleId\trefsetId\treferencedComponentId\towlExpression",
+                k -> new UUID(OWL_AXIOM_REFSET, k).toString(),
+                k -> OWL_AXIOM_REFSET + "\t" + sctid(child(k), CONCEPT_PARTITION) + "\tSubClassOf(:"
+                        + sctid(child(k), CONCEPT_PARTITION) + " :" + sctid(parent(k), CONCEPT_PARTITION) + ")");
+        write(terminology.resolve("sct2_Identifier_Full_INT_" + VERSION_DATE + ".txt"),
+                "alternateIdentifier\teffectiveTime\tactive\tmoduleId\tidentifierSchemeId\treferencedComponentId",
+                k -> "XU" + (100000 + k),
+                k -> IDENTIFIER_SCHEME + "\t" + sctid(k % CONCEPTS, CONCEPT_PARTITION));
+        write(language.resolve("der2_cRefset_LanguageFull-en_INT_" + VERSION_DATE + ".txt"),
+                "id\teffectiveTime\tactive\tmoduleId\trefsetId\treferencedComponentId\tacceptabilityId",
+                k -> new UUID(US_ENGLISH, k).toString(),
+                k -> US_ENGLISH + "\t" + sctid(k, DESCRIPTION_PARTITION) + "\t" + PREFERRED);
+        return directory;
+    }
+
+    /**
+     * @param directory directory the release was written into
+     * @param component component or refset name of the file, such as Description or Language
+     * @return the file of the component
+     * @throws IOException if the directory cannot be read
+     */
+    static Path file(Path directory, String component) throws IOException {
+        try (var files = Files.walk(directory)) {
+            return files.filter(file -> {
+                        Rf2FileName fileName = Rf2FileName.parse(file.getFileName().toString());
+                        return fileName != null && fileName.component().equals(component);
+                    })
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("No " + component + " file in " + directory));
+        }
+    }
+
+    /**
+     * Deletes a directory written by the benchmarks, such as the sample release or a throwaway datastore
+     * @param directory directory to delete with everything in it
+     * @throws IOException if a file cannot be deleted
+     */
+    static void delete(Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (var paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * An SCTID shaped id, with the partition of the component in the digits before the check digit
+     */
+    static long sctid(int k, int partition) {
+        return (100_000L + k) * 1000 + partition * 10 + 1;
+    }
+
+    /**
+     * @return concept of the k-th relationship and axiom row
+     */
+    private static int child(int k) {
+        return concept(k % (CONCEPTS - 1) + 1);
+    }
+
+    /**
+     * @return parent of the concept of the k-th relationship and axiom row
+     */
+    private static int parent(int k) {
+        return concept((k % (CONCEPTS - 1)) / 2);
+    }
+
+    /**
+     * @return concept at a position of the binary tree, in which position p has the parent (p - 1) / 2
+     */
+    private static int concept(int position) {
+        return (int) (position * SCATTER % CONCEPTS);
+    }
+
+    /**
+     * Writes ROWS rows: the id, effectiveTime, active and moduleId columns, then the remaining columns of the component
+     */
+    private static void write(Path file, String header, IntFunction<String> id, IntFunction<String> columns) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(header);
+            writer.write("\r\n");
+            int rows = 0;
+            for (int k = 0; rows < ROWS; k++) {
+                String rest = CORE_MODULE + "\t" + columns.apply(k);
+                if (k % 4 == 0 && rows + 2 <= ROWS) {
+                    writer.write(id.apply(k) + "\t" + OLDER_VERSION_DATE + "\t0\t" + rest + "\r\n");
+                    rows++;
+                }
+                writer.write(id.apply(k) + "\t" + VERSION_DATE + "\t1\t" + rest + "\r\n");
+                rows++;
+            }
+        }
+    }
+}
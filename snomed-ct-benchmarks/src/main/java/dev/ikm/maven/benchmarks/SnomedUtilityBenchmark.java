@@ -0,0 +1,102 @@
+package dev.ikm.maven.benchmarks;
+
+import dev.ikm.maven.SnomedUtility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per call cost of the UUID, OWL axiom and effective time conversions every row goes through. Inputs cycle through
+ * a fixed set of SNOMED shaped values, so with the SCTID UUID cache every lookup after the first pass is a hit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnomedUtilityBenchmark {
+    private static final int SIZE = 1024;
+
+    @Param({"true", "false"})
+    boolean uuidCache;
+
+    private final long[] sctids = new long[SIZE];
+    private final String[] ids = new String[SIZE];
+    private final String[] owlExpressions = new String[SIZE];
+    private final String[] effectiveTimes = new String[SIZE];
+    private final int[] effectiveTimeValues = new int[SIZE];
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if (uuidCache) {
+            SnomedUtility.initializeUuidCache(Rf2Sample.NAMESPACE, SIZE, false);
+        } else {
+            SnomedUtility.clearUuidCache();
+        }
+        for (int i = 0; i < SIZE; i++) {
+            long concept = Rf2Sample.sctid(i, 0);
+            long parent = Rf2Sample.sctid(i / 2, 0);
+            sctids[i] = concept;
+            ids[i] = i % 4 == 0 ? new UUID(733073007L, i).toString() : Long.toString(concept);
+            owlExpressions[i] = i % 2 == 0
+                    ? "SubClassOf(:" + concept + " :" + parent + ")"
+                    : "EquivalentClasses(:" + concept + " ObjectIntersectionOf(:" + parent
+                    + " ObjectSomeValuesFrom(:609096000 ObjectSomeValuesFrom(:363698007 :" + Rf2Sample.sctid(i + SIZE, 0) + "))))";
+            effectiveTimeValues[i] = 20020131 + (i % 20) * 10000;
+            effectiveTimes[i] = Integer.toString(effectiveTimeValues[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SnomedUtility.clearUuidCache();
+    }
+
+    private int next() {
+        index = (index + 1) & (SIZE - 1);
+        return index;
+    }
+
+    @Benchmark
+    public UUID generateUuidFromSctid() {
+        return SnomedUtility.generateUUID(Rf2Sample.NAMESPACE, sctids[next()]);
+    }
+
+    /**
+     * ids as read from a row, a quarter of them refset member UUIDs that bypass the cache
+     */
+    @Benchmark
+    public UUID generateUuidFromId() {
+        return SnomedUtility.generateUUID(Rf2Sample.NAMESPACE, ids[next()]);
+    }
+
+    @Benchmark
+    public String owlAxiomIdsToPublicIds() {
+        return SnomedUtility.owlAxiomIdsToPublicIds(Rf2Sample.NAMESPACE, owlExpressions[next()]);
+    }
+
+    @Benchmark
+    public long snomedTimestampToEpochSeconds() {
+        return SnomedUtility.snomedTimestampToEpochSeconds(effectiveTimes[next()]);
+    }
+
+    @Benchmark
+    public long snomedTimestampToEpochSecondsFromInt() {
+        return SnomedUtility.snomedTimestampToEpochSeconds(effectiveTimeValues[next()]);
+    }
+}
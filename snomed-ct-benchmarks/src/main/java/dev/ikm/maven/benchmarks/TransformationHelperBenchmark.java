@@ -0,0 +1,74 @@
+package dev.ikm.maven.benchmarks;
+
+import dev.ikm.maven.TransformationHelper;
+import dev.ikm.tinkar.terms.EntityProxy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per call cost of the lookups the transformers make for the low cardinality columns of a row. Without the run's
+ * dictionaries, metadata concepts are made anew on every call, as they were before the dictionaries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformationHelperBenchmark {
+    private static final long[] METADATA_CONCEPTS = {
+            900000000000207008L, 900000000000012004L, 900000000000074008L, 900000000000073002L,
+            900000000000003001L, 900000000000013009L, 900000000000448009L, 900000000000017005L,
+            900000000000548007L, 900000000000549004L, 900000000000550004L, 116680003L};
+    private static final int[] EFFECTIVE_TIMES = {
+            20020131, 20030131, 20040131, 20050131, 20060131, 20070131, 20080131, 20090131,
+            20100131, 20110131, 20120131, 20130131, 20140131, 20150131, 20160131, 20170131};
+    private static final long[] DIALECT_REFSETS = {900000000000509007L, 900000000000508004L};
+
+    @Param({"true", "false"})
+    boolean dictionaries;
+
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TransformationHelper.initializeDictionaries(dictionaries ? Rf2Sample.NAMESPACE : UUID.randomUUID());
+    }
+
+    private int next() {
+        return index++ & Integer.MAX_VALUE;
+    }
+
+    @Benchmark
+    public EntityProxy.Concept getMetadataConcept() {
+        return TransformationHelper.getMetadataConcept(Rf2Sample.NAMESPACE, METADATA_CONCEPTS[next() % METADATA_CONCEPTS.length]);
+    }
+
+    @Benchmark
+    public long getEpochTime() {
+        return TransformationHelper.getEpochTime(EFFECTIVE_TIMES[next() % EFFECTIVE_TIMES.length]);
+    }
+
+    @Benchmark
+    public EntityProxy.Concept getLanguageConcept() {
+        return TransformationHelper.getLanguageConcept(next() % 8 == 0 ? "es" : "en");
+    }
+
+    @Benchmark
+    public EntityProxy.Pattern getDialectPattern() {
+        return TransformationHelper.getDialectPattern(DIALECT_REFSETS[next() % DIALECT_REFSETS.length]);
+    }
+}
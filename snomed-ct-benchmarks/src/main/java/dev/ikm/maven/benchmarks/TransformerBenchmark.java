@@ -0,0 +1,134 @@
+package dev.ikm.maven.benchmarks;
+
+import dev.ikm.maven.AbstractTransformer;
+import dev.ikm.maven.AxiomSyntaxTransformer;
+import dev.ikm.maven.ChronologyWriter;
+import dev.ikm.maven.ConceptTransformer;
+import dev.ikm.maven.RelationshipTransformer;
+import dev.ikm.maven.Rf2FileName;
+import dev.ikm.maven.RowTransformer;
+import dev.ikm.maven.RowTransformerRunner;
+import dev.ikm.maven.SnomedUtility;
+import dev.ikm.maven.TransformationHelper;
+import dev.ikm.maven.Transformer;
+import dev.ikm.tinkar.common.service.CachingService;
+import dev.ikm.tinkar.common.service.PrimitiveData;
+import dev.ikm.tinkar.common.service.ServiceKeys;
+import dev.ikm.tinkar.common.service.ServiceProperties;
+import dev.ikm.tinkar.composer.Composer;
+import dev.ikm.tinkar.entity.EntityService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ServiceLoader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transforms one file of the sample release end to end, from reading the rows to committing the sessions, into a
+ * throwaway datastore started fresh for every iteration. Files whose transformer depends on the concept file are
+ * transformed after the concept file, outside the measurement. Each iteration is a single shot, reported per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@OperationsPerInvocation(Rf2Sample.ROWS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class TransformerBenchmark {
+    private static final String CONTROLLER = "Open SpinedArrayStore";
+
+    @Param({"Concept", "Description", "TextDefinition", "Language", "Identifier", "OWLExpression", "Relationship"})
+    String component;
+
+    @Param({"false", "true"})
+    boolean bulkWrite;
+
+    private Path release;
+    private Path datastore;
+    private Path file;
+    private Transformer transformer;
+
+    @Setup(Level.Trial)
+    public void writeRelease() throws IOException {
+        release = Rf2Sample.write(Files.createTempDirectory("snomed-benchmark-release"));
+        file = Rf2Sample.file(release, component);
+    }
+
+    @Setup(Level.Iteration)
+    public void startDatastore() throws IOException {
+        datastore = Files.createTempDirectory("snomed-benchmark-datastore");
+        CachingService.clearAll();
+        ServiceProperties.set(ServiceKeys.DATA_STORE_ROOT, datastore.toFile());
+        PrimitiveData.selectControllerByName(CONTROLLER);
+        PrimitiveData.start();
+        SnomedUtility.initializeUuidCache(Rf2Sample.NAMESPACE, Rf2Sample.ROWS * 4, false);
+        TransformationHelper.initializeDictionaries(Rf2Sample.NAMESPACE);
+        EntityService.get().beginLoadPhase();
+
+        ChronologyWriter chronologyWriter = bulkWrite ? new ChronologyWriter(Rf2Sample.NAMESPACE) : null;
+        transformer = transformer(file, chronologyWriter);
+        if (transformer.dependencies().contains(ConceptTransformer.class)) {
+            Path conceptFile = Rf2Sample.file(release, "Concept");
+            transform(transformer(conceptFile, chronologyWriter), conceptFile);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopDatastore() throws IOException {
+        EntityService.get().endLoadPhase();
+        SnomedUtility.clearUuidCache();
+        PrimitiveData.stop();
+        Rf2Sample.delete(datastore);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteRelease() throws IOException {
+        Rf2Sample.delete(release);
+    }
+
+    @Benchmark
+    public void transform() {
+        transform(transformer, file);
+    }
+
+    private static void transform(Transformer transformer, Path file) {
+        Composer composer = new Composer("Snomed Benchmark Composer " + file.getFileName());
+        transformer.transform(file, composer);
+        composer.commitAllSessions();
+    }
+
+    /**
+     * Picks the transformer of a file the way the transformation mojo does
+     */
+    private static Transformer transformer(Path file, ChronologyWriter chronologyWriter) {
+        Rf2FileName fileName = Rf2FileName.parse(file.getFileName().toString());
+        AbstractTransformer transformer = switch (fileName.component()) {
+            case "OWLExpression" -> new AxiomSyntaxTransformer(Rf2Sample.NAMESPACE);
+            case "Relationship" -> new RelationshipTransformer(Rf2Sample.NAMESPACE);
+            default -> ServiceLoader.load(RowTransformer.class).stream()
+                    .map(ServiceLoader.Provider::get)
+                    .filter(rowTransformer -> rowTransformer.accepts(fileName))
+                    .findFirst()
+                    .map(rowTransformer -> new RowTransformerRunner(Rf2Sample.NAMESPACE, rowTransformer))
+                    .orElseThrow(() -> new IllegalArgumentException("No transformer for " + file.getFileName()));
+        };
+        transformer.setChronologyWriter(chronologyWriter);
+        return transformer;
+    }
+}
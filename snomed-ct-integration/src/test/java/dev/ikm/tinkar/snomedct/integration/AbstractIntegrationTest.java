@@ -3,6 +3,9 @@ package dev.ikm.tinkar.snomedct.integration;
 import dev.ikm.elk.snomed.SnomedOntology;
 import dev.ikm.elk.snomed.SnomedOntologyReasoner;
 import dev.ikm.elk.snomed.model.Concept;
+import dev.ikm.maven.Rf2ColumnarFile;
+import dev.ikm.maven.Rf2ColumnarWriter;
+import dev.ikm.maven.SnomedTransformationMojo;
 import dev.ikm.maven.SnomedUtility;
 import dev.ikm.tinkar.common.id.IntIds;
 import dev.ikm.tinkar.common.service.CachingService;
@@ -52,6 +55,7 @@ public abstract class AbstractIntegrationTest {
     protected static int expected_miss_cnt = 0;
     protected static int expected_pharma_miss_cnt = 0;
     protected static int expected_other_miss_cnt = 0;
+    protected static final Path STAGING_DIRECTORY = Path.of("../snomed-ct-pipeline/target", SnomedTransformationMojo.STAGING_DIRECTORY);
 
     @AfterAll
     public static void shutdown() {
@@ -132,6 +136,10 @@ public abstract class AbstractIntegrationTest {
      * @throws IOException
      */
     protected int processFile(String sourceFilePath, String errorFile) throws IOException {
+        Path stagedFile = Rf2ColumnarWriter.stagedFile(Path.of(sourceFilePath), STAGING_DIRECTORY);
+        if (Rf2ColumnarFile.isCurrent(stagedFile, Path.of(sourceFilePath))) {
+            return processStagedFile(stagedFile, errorFile);
+        }
         int notFound = 0;
         try (BufferedReader br = new BufferedReader(new FileReader(sourceFilePath));
              BufferedWriter bw = new BufferedWriter(new FileWriter(errorFile))) {
@@ -148,6 +156,30 @@ public abstract class AbstractIntegrationTest {
         return notFound;
     }
 
+    /**
+     * Process a file staged by the transformation, reading its columns without parsing the RF2 text again
+     *
+     * @param stagedFile
+     * @param errorFile
+     * @return File status, either Found/NotFound
+     * @throws IOException
+     */
+    protected int processStagedFile(Path stagedFile, String errorFile) throws IOException {
+        int notFound = 0;
+        try (Rf2ColumnarFile rows = Rf2ColumnarFile.open(stagedFile);
+             BufferedWriter bw = new BufferedWriter(new FileWriter(errorFile))) {
+            for (int row = 0; row < rows.rowCount(); row++) {
+                String[] columns = rows.columns(row);
+                if (!assertLine(columns)) {
+                    notFound++;
+                    bw.write(String.join("\t", columns));
+                }
+            }
+        }
+        LOG.info("We found staged file: " + stagedFile);
+        return notFound;
+    }
+
     protected UUID uuid(String id) {
         return SnomedUtility.generateUUID(UuidUtil.SNOMED_NAMESPACE, id);
     }
@@ -170,7 +202,10 @@ public abstract class AbstractIntegrationTest {
         ElkSnomedData data = new ElkSnomedData();
         ElkSnomedDataBuilder builder = new ElkSnomedDataBuilder(viewCalculator,
                 TinkarTerm.EL_PLUS_PLUS_STATED_AXIOMS_PATTERN, data);
+        long start = System.currentTimeMillis();
         builder.build();
+        // compare runs of the pipeline with and without -DhierarchyOrderedNids=true
+        LOG.info("Extracted " + data.getConcepts().size() + " concepts in " + (System.currentTimeMillis() - start) + " ms");
         return data;
     }
 
@@ -230,7 +265,9 @@ public abstract class AbstractIntegrationTest {
 	public ArrayList<String> runSnomedReasonerService() throws Exception {
 		LOG.info("runSnomedReasonerService");
 		ReasonerService rs = initReasonerService();
+		long start = System.currentTimeMillis();
 		rs.extractData();
+		LOG.info("Extracted reasoner data in " + (System.currentTimeMillis() - start) + " ms");
 		rs.loadData();
 		rs.computeInferences();
 		Files.createDirectories(getWritePath("supercs").getParent());